@@ -0,0 +1,60 @@
+package com.bs_enterprises.enterprise_backend_template.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typeahead query latency of {@link NgramIndex} over generated users (first / last name, email, phone),
+ * gram size 3 as in application.yaml. Queries range from very selective ("john smi") to very broad ("a").
+ * <p>
+ * Run with: ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NgramIndexBenchmark {
+
+    private static final String[] FIRST_NAMES = {"john", "maria", "ali", "chen", "fatima", "peter", "olga", "raj", "ana", "liam"};
+    private static final String[] LAST_NAMES = {"smith", "garcia", "khan", "wang", "novak", "o'brien", "silva", "kumar", "müller", "doe"};
+
+    @Param({"100000"})
+    public int users;
+
+    @Param({"john smi", "garc", "a", "12345"})
+    public String query;
+
+    private NgramIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        index = new NgramIndex(3);
+        for (int i = 0; i < users; i++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + (random.nextInt(4) == 0 ? "ny" : "");
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            index.put(String.valueOf(i), Map.of(
+                    "firstName", first,
+                    "lastName", last,
+                    "email", first + "." + last + i + "@example.com",
+                    "phone", String.valueOf(9_000_000_000L + random.nextInt(1_000_000_000))
+            ));
+        }
+    }
+
+    @Benchmark
+    public List<String> search() {
+        return index.search(query, 10);
+    }
+}
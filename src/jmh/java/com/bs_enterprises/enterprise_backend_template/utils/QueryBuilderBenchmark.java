@@ -0,0 +1,95 @@
+package com.bs_enterprises.enterprise_backend_template.utils;
+
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiled (shape-cached) QueryBuilderUtil vs the builder it replaced ({@link BaselineQueryBuilder}) on typical
+ * user search payloads. Both variants render the query document, which is what the driver actually receives.
+ * <p>
+ * Run with: ./gradlew jmh
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QueryBuilderBenchmark {
+
+    private static final String[] SEARCH_TEXTS = {"john", "smith", "ali", "maria", "chen", "o'brien", "dev", "test"};
+
+    @Param({"text", "filters", "full"})
+    public String payload;
+
+    private Map<String, Object>[] searchParams;
+    private int next;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        // same shape, different values: the common case for a list screen
+        searchParams = new Map[SEARCH_TEXTS.length];
+        for (int i = 0; i < SEARCH_TEXTS.length; i++) {
+            searchParams[i] = payload(payload, SEARCH_TEXTS[i], i);
+        }
+    }
+
+    @Benchmark
+    public Document baseline() {
+        return BaselineQueryBuilder.buildQuery(nextParams()).getQueryObject();
+    }
+
+    @Benchmark
+    public Document compiled() {
+        return QueryBuilderUtil.buildQuery(nextParams()).getQueryObject();
+    }
+
+    private Map<String, Object> nextParams() {
+        next = (next + 1) % searchParams.length;
+        return searchParams[next];
+    }
+
+    private static Map<String, Object> payload(String kind, String searchText, int i) {
+        Map<String, Object> params = new HashMap<>();
+        params.put(QueryBuilderUtil.SORT, Map.of("createdAt", -1));
+
+        if (!kind.equals("filters")) {
+            params.put(QueryBuilderUtil.SEARCH_TEXT, searchText);
+            params.put(QueryBuilderUtil.SEARCH_FIELDS, List.of("firstName", "lastName", "email", "username"));
+        }
+
+        if (!kind.equals("text")) {
+            Map<String, Object> and = new HashMap<>();
+            and.put("enabled", true);
+            and.put("studioIds", Map.of("op", "all", "values", List.of("studio-" + i)));
+            and.put("city", "regex:^new");
+
+            Map<String, Object> filters = new HashMap<>();
+            filters.put(QueryBuilderUtil.AND, and);
+            filters.put(QueryBuilderUtil.OR, Map.of("role", List.of("ADMIN", "MANAGER")));
+            params.put(QueryBuilderUtil.FILTERS, filters);
+        }
+
+        if (kind.equals("full")) {
+            params.put(QueryBuilderUtil.NOT_IDS_LIST, List.of("user-" + i));
+            params.put(QueryBuilderUtil.DATE_FILTER, Map.of(
+                    "type", "between",
+                    "field", "createdAt",
+                    "startDate", "2025-10-01T00:00:00Z",
+                    "endDate", "2025-10-31T23:59:59Z"
+            ));
+        }
+        return params;
+    }
+}
@@ -0,0 +1,22 @@
+package com.bs_enterprises.enterprise_backend_template.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ConcurrencyConfig {
+
+    public static final String VIRTUAL_THREAD_EXECUTOR = "virtualThreadExecutor";
+
+    /**
+     * Virtual-thread-per-task executor for blocking I/O that is fanned out in parallel
+     * (e.g. a search count running alongside the page fetch).
+     */
+    @Bean(name = VIRTUAL_THREAD_EXECUTOR, destroyMethod = "close")
+    public ExecutorService virtualThreadExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("vt-io-", 0).factory());
+    }
+}
@@ -4,6 +4,7 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
@@ -19,6 +20,13 @@ public class KeycloakProperties {
 
     private String username;
     private String password;
+
+    /**
+     * Users sent per realm partial-import call by KeycloakUserService.createUsers.
+     */
+    private int bulkImportChunkSize = 200;
+
+    private UserCache userCache = new UserCache();
     /**
      * master-clients:
      *   mobile:
@@ -55,6 +63,18 @@ public class KeycloakProperties {
         return Optional.ofNullable(tokenIssuers.get(key));
     }
 
+    /**
+     * Read-through cache of UserRepresentation by realm and Keycloak id, used by getUser only.
+     * Writes through this node invalidate their entry; changes made elsewhere (other nodes, the Keycloak console)
+     * are seen once the entry expires.
+     */
+    @Data
+    public static class UserCache {
+        private boolean enabled = false;
+        private Duration ttl = Duration.ofSeconds(60);
+        private long maximumSize = 10_000;
+    }
+
     @Data
     public static class ConfidentialClient {
         private String id;
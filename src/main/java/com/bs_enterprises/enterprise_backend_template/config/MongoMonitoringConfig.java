@@ -0,0 +1,20 @@
+package com.bs_enterprises.enterprise_backend_template.config;
+
+import com.bs_enterprises.enterprise_backend_template.services.impl.SlowQueryServiceImpl;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MongoMonitoringConfig {
+
+    /**
+     * Every tenant template shares the auto-configured MongoClient, so one command listener sees all tenant traffic.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "properties.mongodb.slow-query", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public MongoClientSettingsBuilderCustomizer slowQueryCommandListener(SlowQueryServiceImpl slowQueryListener) {
+        return settings -> settings.addCommandListener(slowQueryListener);
+    }
+}
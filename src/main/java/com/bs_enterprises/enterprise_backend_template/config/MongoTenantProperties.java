@@ -0,0 +1,237 @@
+package com.bs_enterprises.enterprise_backend_template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Tuning for the per-tenant MongoDB access layer.
+ * <p>
+ * properties:
+ *   mongodb:
+ *     template-cache:
+ *       maximum-size: 1000
+ *       expire-after-access: 30m
+ *     search:
+ *       count-cap: 10000
+ *       count-cache-ttl: 30s
+ *       count-cache-maximum-size: 10000
+ *       execution-mode: PARALLEL
+ *     typeahead:
+ *       enabled: false
+ *       gram-size: 3
+ *       max-results: 20
+ *       rebuild-on-startup: true
+ *       startup-concurrency: 4
+ *       idle-timeout: 1h
+ *     slow-query:
+ *       enabled: true
+ *       threshold: 200ms
+ *       explain: true
+ *       explain-cooldown: 10m
+ *       max-captured-plans: 100
+ *       percentile-histogram: false
+ *     reservation:
+ *       ttl: 10m
+ *     provisioning:
+ *       transactional: false
+ *       parallel: false
+ *     existence-cache:
+ *       collections: [studios]
+ *       ttl: 30s
+ *       maximum-size: 100000
+ *     user-import:
+ *       chunk-size: 500
+ *       keycloak-concurrency: 8
+ *       max-row-errors: 1000
+ *       stale-after: 5m
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "properties.mongodb")
+public class MongoTenantProperties {
+
+    private TemplateCache templateCache = new TemplateCache();
+
+    private Search search = new Search();
+
+    private Typeahead typeahead = new Typeahead();
+
+    private SlowQuery slowQuery = new SlowQuery();
+
+    private Reservation reservation = new Reservation();
+
+    private ExistenceCache existenceCache = new ExistenceCache();
+
+    private Provisioning provisioning = new Provisioning();
+
+    private UserImport userImport = new UserImport();
+
+    @Data
+    public static class TemplateCache {
+        /**
+         * Maximum number of tenant MongoTemplates kept in memory (least recently used are evicted first).
+         */
+        private long maximumSize = 1000;
+
+        /**
+         * Templates not used for this long are evicted.
+         */
+        private Duration expireAfterAccess = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class Search {
+        /**
+         * ESTIMATED counts on filtered queries stop at this many matches.
+         */
+        private long countCap = 10_000;
+
+        /**
+         * How long CACHED counts are reused.
+         */
+        private Duration countCacheTtl = Duration.ofSeconds(30);
+
+        private long countCacheMaximumSize = 10_000;
+
+        /**
+         * PARALLEL sends count and find to the driver at once; SEQUENTIAL runs count, then find.
+         */
+        private ExecutionMode executionMode = ExecutionMode.PARALLEL;
+    }
+
+    @Data
+    public static class Typeahead {
+        /**
+         * Keep an in-memory n-gram index of each tenant's user directory (costs heap per user).
+         */
+        private boolean enabled = false;
+
+        /**
+         * N-gram length; shorter queries are answered from word-prefix keys.
+         */
+        private int gramSize = 3;
+
+        private int maxResults = 20;
+
+        /**
+         * Load every tenant's index in the background once the application is ready
+         * (otherwise a tenant is loaded on its first typeahead query).
+         */
+        private boolean rebuildOnStartup = true;
+
+        /**
+         * Tenants loaded at the same time by the startup rebuild.
+         */
+        private int startupConcurrency = 4;
+
+        /**
+         * A tenant's index is dropped after this long without a typeahead query.
+         */
+        private Duration idleTimeout = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class SlowQuery {
+        /**
+         * Register the command listener (per-tenant latency metrics and slow command detection).
+         */
+        private boolean enabled = true;
+
+        /**
+         * Commands taking at least this long are logged and, when explain is on, explained.
+         */
+        private Duration threshold = Duration.ofMillis(200);
+
+        /**
+         * Re-run slow find / aggregate / count / distinct / update / delete commands with explain (executionStats).
+         */
+        private boolean explain = true;
+
+        /**
+         * The same command shape on the same tenant collection is explained at most once per cooldown.
+         */
+        private Duration explainCooldown = Duration.ofMinutes(10);
+
+        /**
+         * Plans kept for the slowqueries actuator endpoint (oldest are dropped).
+         */
+        private int maxCapturedPlans = 100;
+
+        /**
+         * Publish histogram buckets for the latency timers (needed for percentiles in Prometheus & co).
+         * Off by default: the timers are tagged per tenant, and the buckets multiply every series by about 70.
+         */
+        private boolean percentileHistogram = false;
+    }
+
+    @Data
+    public static class Reservation {
+        /**
+         * How long uid / email / phone reservations made by prepareAndValidateIdentifiers wait for
+         * provisionNewUser to confirm them before MongoDB's TTL monitor removes them (it runs every ~60s).
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class ExistenceCache {
+        /**
+         * Reference collections whose ids are validated often and rarely deleted (e.g. studios).
+         */
+        private List<String> collections = List.of("studios");
+
+        /**
+         * A deleted document may still pass existence checks for this long.
+         */
+        private Duration ttl = Duration.ofSeconds(30);
+
+        private long maximumSize = 100_000;
+    }
+
+    @Data
+    public static class Provisioning {
+        /**
+         * Write a new user's document, secrets and index entries in one multi-document transaction
+         * (needs a replica set). Off: written one by one, and the ones already written are deleted on failure.
+         */
+        private boolean transactional = false;
+
+        /**
+         * Create the Keycloak user on a virtual thread while the user document is written; UserSecrets and the
+         * index confirmations wait for the Keycloak create to succeed.
+         */
+        private boolean parallel = false;
+    }
+
+    @Data
+    public static class UserImport {
+        /**
+         * Rows validated, reserved and written together; also the unit of progress a resumed import restarts from.
+         */
+        private int chunkSize = 500;
+
+        /**
+         * Keycloak admin calls in flight at once for all imports on this node.
+         */
+        private int keycloakConcurrency = 8;
+
+        /**
+         * Row errors kept on the job document (all of them are counted).
+         */
+        private int maxRowErrors = 1000;
+
+        /**
+         * A RUNNING job without progress for this long is considered abandoned (node crashed) and can be resumed.
+         */
+        private Duration staleAfter = Duration.ofMinutes(5);
+    }
+
+    public enum ExecutionMode {
+        SEQUENTIAL,
+        PARALLEL
+    }
+}
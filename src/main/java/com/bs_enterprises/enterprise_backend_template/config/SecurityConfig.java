@@ -1,6 +1,7 @@
 package com.bs_enterprises.enterprise_backend_template.config;
 
 import com.bs_enterprises.enterprise_backend_template.constants.ApiEndPoints;
+import com.bs_enterprises.enterprise_backend_template.constants.ApplicationRoles;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -36,6 +37,10 @@ public class SecurityConfig {
                                 "/swagger-ui.html",
                                 "/swagger-ui/**"
                         ).permitAll()
+                        // actuator: metrics, index and slow query reports span every tenant, so master realm admins only
+                        .requestMatchers("/actuator/health", "/actuator/health/**").authenticated()
+                        .requestMatchers("/actuator", "/actuator/**")
+                        .hasAuthority(ApplicationRoles.ISSUED_MASTER_ADMIN)
                         .anyRequest().authenticated() // All other requests require authentication
                 )
                 .oauth2ResourceServer(oauth2 ->
@@ -14,4 +14,7 @@ public class ApplicationRoles {
     public static final String ROLE_ISSUED_MASTER_CREATE_REALM =
             HAS_ANY_AUTHORITY_START + ISSUED_MASTER_CREATE_REALM + HAS_ANY_AUTHORITY_END;
 
+    // Authorities for request matchers (SecurityConfig)
+    public static final String ISSUED_MASTER_ADMIN = "ISSUED_MASTER_ADMIN";
+
 }
@@ -12,6 +12,9 @@ public class MongoDBConstants {
     //Utility Ids
     public static final String ID_COMPANY_CONFIGURATION = "company-configuration";
     public static final String FIELD_ID = "_id";
+    public static final String FIELD_SEARCH_SHADOW = "_search"; // normalized copies of searchable fields
+    public static final String FIELD_RESERVED_UNTIL = "reservedUntil"; // index entries: set while only reserved
+    public static final String FIELD_RESERVED_BY = "reservedBy"; // index entries: owner token of the reservation
     public static final String ID_HALF_EMAIL_VERIFICATION = "-email-verification";
     public static final String ID_HALF_RESET_PASSWORD = "-reset-password";
 
@@ -37,4 +40,6 @@ public class MongoDBConstants {
     private static final List<String> tokenIds = List.of(ID_HALF_EMAIL_VERIFICATION, ID_HALF_RESET_PASSWORD);
 
     public static final String COLLECTION_AUTO_GEN_POLICIES = "auto_gen_policies";
+    public static final String COLLECTION_IMPORT_JOBS = "import_jobs";
+    public static final String COLLECTION_SEARCH_BACKFILLS = "search_backfills"; // per collection: fields its _search was built from
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.bs_enterprises.enterprise_backend_template.endpoints;
+
+import com.bs_enterprises.enterprise_backend_template.models.diagnostics.SlowQueryPlan;
+import com.bs_enterprises.enterprise_backend_template.services.SlowQueryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * /actuator/slowqueries — explain plans captured for slow MongoDB commands on this node.
+ * /actuator/slowqueries/{tenant} narrows to one tenant; DELETE clears the buffer.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueriesEndpoint {
+
+    private final SlowQueryService slowQueryService;
+
+    @ReadOperation
+    public List<SlowQueryPlan> plans() {
+        return slowQueryService.capturedPlans();
+    }
+
+    @ReadOperation
+    public List<SlowQueryPlan> plans(@Selector String tenant) {
+        return slowQueryService.capturedPlans(tenant);
+    }
+
+    @DeleteOperation
+    public void clear() {
+        slowQueryService.clearCapturedPlans();
+    }
+}
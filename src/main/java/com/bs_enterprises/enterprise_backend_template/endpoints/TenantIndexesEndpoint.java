@@ -0,0 +1,49 @@
+package com.bs_enterprises.enterprise_backend_template.endpoints;
+
+import com.bs_enterprises.enterprise_backend_template.models.indexes.TenantIndexReport;
+import com.bs_enterprises.enterprise_backend_template.services.DatabaseService;
+import com.bs_enterprises.enterprise_backend_template.services.TenantIndexService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * /actuator/tenantindexes — index provisioning status of every tenant seen by this node.
+ * POST /actuator/tenantindexes/{tenant} re-runs provisioning for one existing tenant database
+ * (admins only, see SecurityConfig); unknown names are rejected so that no database is created.
+ */
+@Component
+@Endpoint(id = "tenantindexes")
+@RequiredArgsConstructor
+public class TenantIndexesEndpoint {
+
+    private static final Set<String> SYSTEM_DATABASES = Set.of("admin", "local", "config");
+
+    private final TenantIndexService tenantIndexService;
+    private final DatabaseService databaseService;
+
+    @ReadOperation
+    public Map<String, TenantIndexReport> reports() {
+        return tenantIndexService.reports();
+    }
+
+    @ReadOperation
+    public TenantIndexReport report(@Selector String tenant) {
+        return tenantIndexService.report(tenant);
+    }
+
+    @WriteOperation
+    public TenantIndexReport provision(@Selector String tenant) {
+        if (SYSTEM_DATABASES.contains(tenant) || !databaseService.listAllDatabases().contains(tenant)) {
+            throw new InvalidEndpointRequestException("Unknown tenant database: " + tenant, "Unknown tenant database");
+        }
+        return tenantIndexService.provision(tenant);
+    }
+}
@@ -0,0 +1,4 @@
+package com.bs_enterprises.enterprise_backend_template.events;
+
+public record TenantDatabaseDroppedEvent(String tenant) {
+}
@@ -0,0 +1,8 @@
+package com.bs_enterprises.enterprise_backend_template.events;
+
+/**
+ * Published when a tenant MongoTemplate is built (first use of the tenant by this node, or after eviction).
+ * Published from inside the template registry: listeners must not synchronously request the same tenant's template.
+ */
+public record TenantTemplateCreatedEvent(String tenant) {
+}
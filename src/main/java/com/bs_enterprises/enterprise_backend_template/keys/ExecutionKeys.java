@@ -17,5 +17,12 @@ public final class ExecutionKeys {
     public static final String STUDIO_NOT_FOUND = "execution.studios.studio.not-found";
     public static final String USER_NOT_FOUND = "execution.users.user-not-found";
 
+    public static final String IMPORT_JOB_NOT_FOUND = "execution.imports.job-not-found";
+    public static final String IMPORT_JOB_IN_PROGRESS = "execution.imports.job-in-progress";
+    public static final String IMPORT_ROW_UNREADABLE = "execution.imports.row-unreadable";
+    public static final String IMPORT_DUPLICATE_IN_FILE = "execution.imports.duplicate-in-file";
+    public static final String IMPORT_KEYCLOAK_FAILED = "execution.imports.keycloak-failed";
+    public static final String IMPORT_PERSIST_FAILED = "execution.imports.persist-failed";
+
     // add more execution keys as you add more runtime checks
 }
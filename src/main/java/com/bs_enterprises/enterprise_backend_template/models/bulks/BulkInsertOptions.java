@@ -0,0 +1,30 @@
+package com.bs_enterprises.enterprise_backend_template.models.bulks;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkInsertOptions {
+
+    /**
+     * ORDERED stops at the first failing item (later items are reported SKIPPED);
+     * unordered keeps inserting and reports each failure individually.
+     */
+    @Builder.Default
+    private boolean ordered = false;
+
+    /**
+     * Documents sent per insert command.
+     */
+    @Builder.Default
+    private int batchSize = 1000;
+
+    public static BulkInsertOptions defaults() {
+        return BulkInsertOptions.builder().build();
+    }
+}
@@ -0,0 +1,32 @@
+package com.bs_enterprises.enterprise_backend_template.models.bulks;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkInsertResult {
+    private int requested;
+    private int inserted;
+    private int duplicates;
+    private int failed;
+    private int skipped;
+    private List<BulkItemResult> items; // one entry per submitted item, in submission order
+
+    public static BulkInsertResult of(List<BulkItemResult> items) {
+        int inserted = 0, duplicates = 0, failed = 0, skipped = 0;
+        for (BulkItemResult item : items) {
+            switch (item.status()) {
+                case INSERTED -> inserted++;
+                case DUPLICATE_KEY -> duplicates++;
+                case FAILED -> failed++;
+                case SKIPPED -> skipped++;
+            }
+        }
+        return new BulkInsertResult(items.size(), inserted, duplicates, failed, skipped, items);
+    }
+}
@@ -0,0 +1,7 @@
+package com.bs_enterprises.enterprise_backend_template.models.bulks;
+
+/**
+ * Outcome of one item of a bulk write, by its position in the submitted collection.
+ */
+public record BulkItemResult(int index, Object id, BulkItemStatus status, String error) {
+}
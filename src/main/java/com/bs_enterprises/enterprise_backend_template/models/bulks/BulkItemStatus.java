@@ -0,0 +1,11 @@
+package com.bs_enterprises.enterprise_backend_template.models.bulks;
+
+public enum BulkItemStatus {
+    INSERTED,
+    DUPLICATE_KEY,
+    FAILED,
+    /**
+     * Not attempted: an earlier item failed in ORDERED mode.
+     */
+    SKIPPED
+}
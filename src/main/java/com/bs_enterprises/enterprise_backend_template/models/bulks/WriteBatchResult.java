@@ -0,0 +1,29 @@
+package com.bs_enterprises.enterprise_backend_template.models.bulks;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WriteBatchResult {
+    private int inserted;
+    private int matched;
+    private int modified;
+    private int deleted;
+    private int upserted;
+    private int failed;
+    private int skipped;
+    private List<WriteOpResult> operations; // one entry per queued operation, in queue order
+
+    public boolean isSuccessful() {
+        return failed == 0 && skipped == 0;
+    }
+
+    public static WriteBatchResult empty() {
+        return new WriteBatchResult(0, 0, 0, 0, 0, 0, 0, List.of());
+    }
+}
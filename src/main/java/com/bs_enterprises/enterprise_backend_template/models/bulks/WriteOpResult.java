@@ -0,0 +1,8 @@
+package com.bs_enterprises.enterprise_backend_template.models.bulks;
+
+/**
+ * Outcome of one operation of a write batch, by its position in the batch.
+ * The server only reports matched/modified/deleted counts for the batch as a whole (see {@link WriteBatchResult}).
+ */
+public record WriteOpResult(int index, WriteOpType type, WriteOpStatus status, String error) {
+}
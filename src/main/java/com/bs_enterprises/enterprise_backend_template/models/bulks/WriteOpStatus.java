@@ -0,0 +1,11 @@
+package com.bs_enterprises.enterprise_backend_template.models.bulks;
+
+public enum WriteOpStatus {
+    APPLIED,
+    DUPLICATE_KEY,
+    FAILED,
+    /**
+     * Not attempted: an earlier operation failed in an ordered batch.
+     */
+    SKIPPED
+}
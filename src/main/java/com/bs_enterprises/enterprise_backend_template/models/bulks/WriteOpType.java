@@ -0,0 +1,10 @@
+package com.bs_enterprises.enterprise_backend_template.models.bulks;
+
+public enum WriteOpType {
+    INSERT,
+    UPDATE_ONE,
+    UPDATE_MANY,
+    REPLACE,
+    DELETE_ONE,
+    DELETE_MANY
+}
@@ -0,0 +1,32 @@
+package com.bs_enterprises.enterprise_backend_template.models.diagnostics;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A slow command and the plan MongoDB chose for it.
+ *
+ * @param tenant         database the command ran against
+ * @param command        command name (find, aggregate, update, ...)
+ * @param shape          the command's filter / pipeline with every value replaced by "?"
+ * @param stages         stages of the winning plan, e.g. [FETCH, IXSCAN]
+ * @param indexes        indexes used by the winning plan
+ * @param collectionScan true when the winning plan contains a COLLSCAN
+ * @param error          null when explain succeeded
+ */
+public record SlowQueryPlan(
+        Instant capturedAt,
+        String tenant,
+        String collection,
+        String command,
+        long durationMs,
+        String shape,
+        List<String> stages,
+        List<String> indexes,
+        boolean collectionScan,
+        Long docsExamined,
+        Long keysExamined,
+        Long returned,
+        String error
+) {
+}
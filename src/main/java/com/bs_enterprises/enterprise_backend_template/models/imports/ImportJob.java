@@ -0,0 +1,52 @@
+package com.bs_enterprises.enterprise_backend_template.models.imports;
+
+import com.bs_enterprises.enterprise_backend_template.constants.MongoDBConstants;
+import com.bs_enterprises.enterprise_backend_template.models.exports.ExportFormat;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress of one bulk user import, stored in the tenant database and updated after every chunk.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = MongoDBConstants.COLLECTION_IMPORT_JOBS)
+public class ImportJob {
+
+    @Id
+    @Field(MongoDBConstants.FIELD_ID)
+    private String id;
+
+    private ExportFormat format;
+    private ImportJobStatus status;
+
+    /**
+     * Rows fully handled (created or rejected), counted from the start of the file; a resumed run skips them.
+     */
+    private long processedRows;
+    private long createdUsers;
+    private long failedRows;
+
+    /**
+     * The first properties.mongodb.user-import.max-row-errors row errors.
+     */
+    private List<ImportRowError> errors = new ArrayList<>();
+
+    /**
+     * Rows of the chunk being written, plus rows a recovery finished that processedRows has not passed yet;
+     * empty between chunks otherwise.
+     */
+    private List<ImportPendingRow> pendingRows = new ArrayList<>();
+
+    private Instant createdAt;
+    private Instant updatedAt;
+    private Instant completedAt;
+    private String lastError;
+}
@@ -0,0 +1,14 @@
+package com.bs_enterprises.enterprise_backend_template.models.imports;
+
+public enum ImportJobStatus {
+    /**
+     * Created, no rows read yet.
+     */
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    /**
+     * Stopped by an error that is not about a single row (unreadable file, database down); can be resumed.
+     */
+    FAILED
+}
@@ -0,0 +1,28 @@
+package com.bs_enterprises.enterprise_backend_template.models.imports;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A row of the chunk being written, kept on the job so a resumed import can tell what the interrupted chunk did.
+ *
+ * @param username       to find a Keycloak user created just before an interruption (keycloakUserId still null)
+ * @param keycloakUserId null until the Keycloak user is known to exist
+ * @param identifiers    index collection → reserved values
+ * @param finished       written, confirmed and counted by a recovery; skipped until processedRows passes it
+ */
+public record ImportPendingRow(long row,
+                               String userId,
+                               String username,
+                               String keycloakUserId,
+                               Map<String, List<String>> identifiers,
+                               boolean finished) {
+
+    public ImportPendingRow withKeycloakUserId(String keycloakUserId) {
+        return new ImportPendingRow(row, userId, username, keycloakUserId, identifiers, finished);
+    }
+
+    public ImportPendingRow asFinished() {
+        return new ImportPendingRow(row, userId, username, keycloakUserId, identifiers, true);
+    }
+}
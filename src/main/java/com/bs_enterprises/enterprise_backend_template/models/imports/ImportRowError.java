@@ -0,0 +1,9 @@
+package com.bs_enterprises.enterprise_backend_template.models.imports;
+
+/**
+ * @param row    1-based data row (CSV header and blank lines not counted)
+ * @param userId local id of the row's user, null when the row could not be read
+ * @param error  message key (ExecutionKeys / ValidationKeys), followed by details where there are any
+ */
+public record ImportRowError(long row, String userId, String error) {
+}
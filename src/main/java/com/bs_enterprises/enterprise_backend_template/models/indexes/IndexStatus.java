@@ -0,0 +1,8 @@
+package com.bs_enterprises.enterprise_backend_template.models.indexes;
+
+/**
+ * @param keys  index keys as JSON, e.g. {"_search.email": 1}
+ * @param error null when the index exists
+ */
+public record IndexStatus(String collection, String name, String keys, boolean ready, String error) {
+}
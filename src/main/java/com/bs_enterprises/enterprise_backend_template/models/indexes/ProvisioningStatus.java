@@ -0,0 +1,11 @@
+package com.bs_enterprises.enterprise_backend_template.models.indexes;
+
+public enum ProvisioningStatus {
+    PENDING,
+    RUNNING,
+    PROVISIONED,
+    /**
+     * At least one index could not be created; retried the next time the tenant template is built.
+     */
+    FAILED
+}
@@ -0,0 +1,23 @@
+package com.bs_enterprises.enterprise_backend_template.models.indexes;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TenantIndexReport {
+    private String tenant;
+    private ProvisioningStatus status;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private List<IndexStatus> indexes;
+
+    public static TenantIndexReport pending(String tenant) {
+        return new TenantIndexReport(tenant, ProvisioningStatus.PENDING, null, null, List.of());
+    }
+}
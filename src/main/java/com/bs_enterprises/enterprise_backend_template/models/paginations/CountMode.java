@@ -0,0 +1,27 @@
+package com.bs_enterprises.enterprise_backend_template.models.paginations;
+
+/**
+ * How {@code search} computes {@link Pagination#getTotalElements()}.
+ */
+public enum CountMode {
+
+    /**
+     * Exact count of matching documents (default).
+     */
+    EXACT,
+
+    /**
+     * No count at all; totalElements/totalPages are reported as -1 and "last" is detected by look-ahead.
+     */
+    NONE,
+
+    /**
+     * Collection metadata count when there are no filters, otherwise a count capped at the configured limit.
+     */
+    ESTIMATED,
+
+    /**
+     * Exact count served from a short-lived cache keyed by tenant, collection and normalized query.
+     */
+    CACHED
+}
@@ -0,0 +1,18 @@
+package com.bs_enterprises.enterprise_backend_template.models.paginations;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPagination<T> {
+    private List<T> content;
+    private int size;           // requested page size
+    private String nextCursor;  // opaque token for the next page, null on the last page
+    private boolean hasNext;
+
+}
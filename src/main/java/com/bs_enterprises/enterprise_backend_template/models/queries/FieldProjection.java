@@ -0,0 +1,39 @@
+package com.bs_enterprises.enterprise_backend_template.models.queries;
+
+import com.bs_enterprises.enterprise_backend_template.constants.MongoDBConstants;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+/**
+ * Include / exclude field list applied to {@code Query.fields()} so only the requested fields
+ * are sent over the wire and mapped. MongoDB does not allow mixing both, except excluding _id.
+ */
+public record FieldProjection(List<String> includes, List<String> excludes) {
+
+    public FieldProjection {
+        includes = includes == null ? List.of() : List.copyOf(includes);
+        excludes = excludes == null ? List.of() : List.copyOf(excludes);
+        if (!includes.isEmpty() && excludes.stream().anyMatch(f -> !MongoDBConstants.FIELD_ID.equals(f))) {
+            throw new IllegalArgumentException("Projection cannot mix included and excluded fields (except _id).");
+        }
+    }
+
+    public static FieldProjection include(String... fields) {
+        return new FieldProjection(List.of(fields), List.of());
+    }
+
+    public static FieldProjection exclude(String... fields) {
+        return new FieldProjection(List.of(), List.of(fields));
+    }
+
+    public boolean isEmpty() {
+        return includes.isEmpty() && excludes.isEmpty();
+    }
+
+    public Query applyTo(Query query) {
+        includes.forEach(field -> query.fields().include(field));
+        excludes.forEach(field -> query.fields().exclude(field));
+        return query;
+    }
+}
@@ -0,0 +1,44 @@
+package com.bs_enterprises.enterprise_backend_template.models.queries;
+
+import java.util.Locale;
+
+/**
+ * How {@code searchText} is matched against {@code searchFields} (searchParams key {@code searchMode}).
+ */
+public enum SearchMode {
+
+    /**
+     * Case-insensitive substring regex on the raw fields (default, legacy). Cannot use an index.
+     */
+    CONTAINS,
+
+    /**
+     * Anchored prefix on the normalized {@code _search.*} shadow fields; uses their indexes.
+     */
+    PREFIX,
+
+    /**
+     * MongoDB {@code $text} search on the repository's text index (whole words, stemmed).
+     */
+    TEXT,
+
+    /**
+     * Equality on the normalized {@code _search.*} shadow fields (case and accent insensitive).
+     */
+    EXACT;
+
+    public static SearchMode from(Object value) {
+        if (value == null) {
+            return CONTAINS;
+        }
+        try {
+            return SearchMode.valueOf(value.toString().trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid search mode. Allowed: contains, prefix, text, exact.");
+        }
+    }
+
+    public boolean usesShadowFields() {
+        return this == PREFIX || this == EXACT;
+    }
+}
@@ -0,0 +1,22 @@
+package com.bs_enterprises.enterprise_backend_template.models.queries;
+
+/**
+ * What {@code update} hands back. Every mode is a single round trip; a missing id is reported as not-found.
+ */
+public enum UpdateReturnMode {
+
+    /**
+     * findAndModify, returns the document after the update (default).
+     */
+    NEW,
+
+    /**
+     * findAndModify, returns the document as it was before the update.
+     */
+    PREVIOUS,
+
+    /**
+     * updateOne, nothing is returned or decoded (update returns null).
+     */
+    NONE
+}
@@ -8,6 +8,8 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Field;
 
+import java.time.Instant;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -18,4 +20,21 @@ public class IndexEntry {
     @Indexed
     private String id; // This will be the unique field value (e.g., email)
 
+    /**
+     * Set while the value is only reserved (signup in progress), unset once confirmed.
+     * The "reservation_ttl" index removes reservations nobody confirmed.
+     */
+    @Field(MongoDBConstants.FIELD_RESERVED_UNTIL)
+    private Instant reservedUntil;
+
+    /**
+     * Owner token of a reservation (the uid being provisioned, the import job); only the owner confirms or
+     * releases it. Kept once confirmed; absent on entries created directly.
+     */
+    @Field(MongoDBConstants.FIELD_RESERVED_BY)
+    private String reservedBy;
+
+    public IndexEntry(String id) {
+        this.id = id;
+    }
 }
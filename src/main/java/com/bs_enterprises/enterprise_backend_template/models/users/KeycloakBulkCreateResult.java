@@ -0,0 +1,12 @@
+package com.bs_enterprises.enterprise_backend_template.models.users;
+
+import java.util.Map;
+
+/**
+ * Outcome of a bulk Keycloak create, keyed by local user id (KeycloakUserModel.id).
+ *
+ * @param created local id → Keycloak id
+ * @param failed  local id → reason (already exists, rejected chunk, ...)
+ */
+public record KeycloakBulkCreateResult(Map<String, String> created, Map<String, String> failed) {
+}
@@ -75,4 +75,15 @@ public class KeycloakUserModel {
             "enabled",
             "emailVerified"
     );
+
+    /**
+     * Fields served by the prefix / exact / text search modes.
+     */
+    public static List<String> searchableFields = List.of(
+            "username",
+            "firstName",
+            "lastName",
+            "email",
+            "phone"
+    );
 }
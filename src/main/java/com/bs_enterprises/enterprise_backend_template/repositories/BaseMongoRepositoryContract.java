@@ -1,16 +1,49 @@
 package com.bs_enterprises.enterprise_backend_template.repositories;
 
+import com.bs_enterprises.enterprise_backend_template.models.bulks.BulkInsertOptions;
+import com.bs_enterprises.enterprise_backend_template.models.bulks.BulkInsertResult;
+import com.bs_enterprises.enterprise_backend_template.models.paginations.CountMode;
+import com.bs_enterprises.enterprise_backend_template.models.paginations.CursorPagination;
+import com.bs_enterprises.enterprise_backend_template.models.queries.FieldProjection;
+import com.bs_enterprises.enterprise_backend_template.models.queries.UpdateReturnMode;
 import org.springframework.data.domain.Page;
+import org.springframework.data.mongodb.core.MongoTemplate;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 public interface BaseMongoRepositoryContract<T> {
 
     T create(T entity, String tenant);
 
+    /**
+     * {@link #create(Object, String)} through the given template, e.g. one bound to a client session
+     * (transaction); null uses the tenant's template. Write listeners are notified once the surrounding
+     * transaction commits (never if it aborts). Write errors are thrown as CREATION_FAILED with the driver
+     * error as cause; DatabaseService#inTransaction still retries transient ones.
+     */
+    T create(T entity, String tenant, MongoTemplate optionalMongoTemplate);
+
+    /**
+     * Insert many documents with batched insert commands. Duplicate keys and other failures are
+     * reported per item instead of failing the whole call.
+     */
+    BulkInsertResult createAll(Collection<T> entities, String tenant, BulkInsertOptions options);
+
     T update(String id, Map<String, Object> updates, List<String> allowedKeysForUpdate, String tenant);
 
+    /**
+     * Single round-trip update; returns the new or previous document, or null for {@link UpdateReturnMode#NONE}.
+     * Throws RECORD_NOT_FOUND when the id does not exist.
+     */
+    T update(String id,
+             Map<String, Object> updates,
+             List<String> allowedKeysForUpdate,
+             String tenant,
+             UpdateReturnMode returnMode);
+
     long bulkUpdateByFilters(
             Map<String, Object> filters,
             Map<String, Object> updates,
@@ -22,9 +55,72 @@ public interface BaseMongoRepositoryContract<T> {
 
     T getById(String id, String tenant);
 
+    /**
+     * Load many documents with a single $in query, in the order of the given ids (missing ids are skipped).
+     */
+    List<T> getByIds(Collection<String> ids, String tenant);
+
+    /**
+     * Load only the projected fields; the other properties of the returned entity stay unset.
+     */
+    T getById(String id, FieldProjection projection, String tenant);
+
+    /**
+     * Load into a projection interface / record / DTO; only its properties are fetched.
+     */
+    <P> P getByIdAs(String id, Class<P> projectionType, String tenant);
+
     Page<T> search(Map<String, Object> searchParams, int page, int size, String tenant);
 
+    /**
+     * Offset search with a selectable total-count strategy; the count runs in parallel with the page fetch.
+     */
+    Page<T> search(Map<String, Object> searchParams, int page, int size, String tenant, CountMode countMode);
+
+    Page<T> search(Map<String, Object> searchParams,
+                   int page,
+                   int size,
+                   String tenant,
+                   CountMode countMode,
+                   FieldProjection projection);
+
+    <P> Page<P> searchAs(Map<String, Object> searchParams,
+                         int page,
+                         int size,
+                         String tenant,
+                         CountMode countMode,
+                         Class<P> projectionType);
+
+    /**
+     * Keyset (seek) pagination: same filters/sort as {@link #search}, but pages are addressed by an
+     * opaque cursor (sort key + _id) and no total count is computed. Pass a null cursor for the first page.
+     */
+    CursorPagination<T> searchByCursor(Map<String, Object> searchParams, String cursor, int size, String tenant);
+
+    /**
+     * Cursor-backed stream over every document matching the QueryBuilderUtil filters.
+     * Memory stays constant; the caller must close the stream (try-with-resources).
+     */
+    Stream<T> stream(Map<String, Object> searchParams, FieldProjection projection, String tenant);
+
+    /**
+     * Start a mixed insert / update / replace / delete batch that is flushed in one bulkWrite per tenant collection.
+     */
+    WriteBatch<T> writeBatch(String tenant);
+
+    /**
+     * Recompute the normalized _search.* fields of every document (after adding or changing searchable fields).
+     * Runs automatically with the tenant's index provisioning when the fields changed since the last backfill.
+     * Returns the number of documents modified.
+     */
+    long reindexSearchFields(String tenant);
+
     long bulkDeleteByIds(List<String> ids, String tenant);
 
+    /**
+     * Register a listener notified after every successful write through this repository.
+     */
+    void addWriteListener(RepositoryWriteListener<T> listener);
+
     long bulkDeleteByFilters(Map<String, Object> filters, String tenant);
 }
@@ -3,8 +3,11 @@ package com.bs_enterprises.enterprise_backend_template.repositories;
 import com.bs_enterprises.enterprise_backend_template.repositories.impl.BaseMongoRepository;
 import com.bs_enterprises.enterprise_backend_template.services.DatabaseService;
 import com.bs_enterprises.enterprise_backend_template.services.IndexingService;
+import com.bs_enterprises.enterprise_backend_template.services.SearchExecutionService;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
+
 /**
  * Generic concrete repository — supply entityClass + collectionName at construction time.
  */
@@ -13,16 +16,33 @@ public class GenericMongoRepository<T> extends BaseMongoRepository<T> {
 
     private final Class<T> entityClass;
     private final String collectionName;
+    private final List<String> searchableFields;
 
     public GenericMongoRepository(
             Class<T> entityClass,
             String collectionName,
             DatabaseService databaseService,
-            IndexingService indexingService
+            IndexingService indexingService,
+            SearchExecutionService searchExecutionService
     ) {
-        super(databaseService, indexingService);
+        this(entityClass, collectionName, List.of(), databaseService, indexingService, searchExecutionService);
+    }
+
+    /**
+     * @param searchableFields fields served by the PREFIX / EXACT / TEXT search modes (shadowed + indexed)
+     */
+    public GenericMongoRepository(
+            Class<T> entityClass,
+            String collectionName,
+            List<String> searchableFields,
+            DatabaseService databaseService,
+            IndexingService indexingService,
+            SearchExecutionService searchExecutionService
+    ) {
+        super(databaseService, indexingService, searchExecutionService);
         this.entityClass = entityClass;
         this.collectionName = collectionName;
+        this.searchableFields = List.copyOf(searchableFields);
     }
 
     @Override
@@ -34,4 +54,9 @@ public class GenericMongoRepository<T> extends BaseMongoRepository<T> {
     protected String getCollectionName() {
         return collectionName;
     }
+
+    @Override
+    protected List<String> getSearchableFields() {
+        return searchableFields;
+    }
 }
@@ -0,0 +1,11 @@
+package com.bs_enterprises.enterprise_backend_template.repositories;
+
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+
+import java.util.List;
+
+/**
+ * Indexes a collection needs in every tenant database.
+ */
+public record IndexContribution(String collection, List<IndexDefinition> indexes) {
+}
@@ -0,0 +1,30 @@
+package com.bs_enterprises.enterprise_backend_template.repositories;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Callback for successful writes through a {@link BaseMongoRepositoryContract}, used to keep
+ * derived in-process state (e.g. search indexes) in sync. Invoked synchronously on the writing thread,
+ * after the write; exceptions are logged and never fail the write.
+ */
+public interface RepositoryWriteListener<T> {
+
+    default void onCreated(String tenant, T entity) {
+    }
+
+    /**
+     * @param appliedUpdates the fields that were set (null value = unset), after allowed-key filtering
+     */
+    default void onUpdated(String tenant, String id, Map<String, Object> appliedUpdates) {
+    }
+
+    default void onDeleted(String tenant, Collection<String> ids) {
+    }
+
+    /**
+     * Writes whose affected documents are not known individually (filter-based bulk writes, write batches).
+     */
+    default void onBulkChange(String tenant) {
+    }
+}
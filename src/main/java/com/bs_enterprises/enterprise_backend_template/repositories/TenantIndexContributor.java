@@ -0,0 +1,18 @@
+package com.bs_enterprises.enterprise_backend_template.repositories;
+
+import java.util.List;
+
+/**
+ * Beans declaring indexes beyond the entity annotations; applied to every tenant database by the index provisioner.
+ */
+public interface TenantIndexContributor {
+
+    List<IndexContribution> tenantIndexes();
+
+    /**
+     * Called by the provisioner once every index of the tenant is in place, on the same background task:
+     * the place for data backfills those indexes depend on. Failures mark the tenant's provisioning FAILED.
+     */
+    default void afterIndexesProvisioned(String tenant) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.bs_enterprises.enterprise_backend_template.repositories;
+
+import com.bs_enterprises.enterprise_backend_template.models.bulks.WriteBatchResult;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mixed write batch against one tenant collection, sent as a single bulkWrite command on {@link #execute()}.
+ * Results are reported per operation, by the position it was queued at.
+ * <p>
+ * Ordered by default: the server stops at the first failing operation and the rest are reported SKIPPED.
+ * Not thread-safe; build and execute it on one thread.
+ */
+public interface WriteBatch<T> {
+
+    WriteBatch<T> unordered();
+
+    WriteBatch<T> insert(T entity);
+
+    /**
+     * Same semantics as {@link BaseMongoRepositoryContract#update}: keys outside allowedKeysForUpdate are dropped
+     * and null values are unset. Throws INVALID_UPDATE_PAYLOAD when nothing is left after filtering.
+     */
+    WriteBatch<T> updateOne(String id, Map<String, Object> updates, List<String> allowedKeysForUpdate);
+
+    /**
+     * Filter-based counterpart of {@link #updateOne}; throws INVALID_QUERY_PARAMETERS for empty filters
+     * and INVALID_UPDATE_PAYLOAD when nothing is left after filtering.
+     */
+    WriteBatch<T> updateMany(Map<String, Object> filters, Map<String, Object> updates, List<String> allowedKeysForUpdate);
+
+    WriteBatch<T> replace(String id, T entity);
+
+    WriteBatch<T> deleteById(String id);
+
+    WriteBatch<T> deleteMany(Map<String, Object> filters);
+
+    int size();
+
+    /**
+     * Send every queued operation in one bulkWrite. Write errors are reported per operation instead of thrown.
+     */
+    WriteBatchResult execute();
+}
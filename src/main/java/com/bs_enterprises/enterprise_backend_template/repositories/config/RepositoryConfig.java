@@ -5,6 +5,7 @@ import com.bs_enterprises.enterprise_backend_template.models.users.KeycloakUserM
 import com.bs_enterprises.enterprise_backend_template.repositories.GenericMongoRepository;
 import com.bs_enterprises.enterprise_backend_template.services.DatabaseService;
 import com.bs_enterprises.enterprise_backend_template.services.IndexingService;
+import com.bs_enterprises.enterprise_backend_template.services.SearchExecutionService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -14,13 +15,16 @@ public class RepositoryConfig {
     @Bean("keycloakUserRepository")
     public GenericMongoRepository<KeycloakUserModel> keycloakUserRepository(
             DatabaseService databaseService,
-            IndexingService indexingService
+            IndexingService indexingService,
+            SearchExecutionService searchExecutionService
     ) {
         return new GenericMongoRepository<>(
                 KeycloakUserModel.class,
                 MongoDBConstants.COLLECTION_USERS,
+                KeycloakUserModel.searchableFields,
                 databaseService,
-                indexingService
+                indexingService,
+                searchExecutionService
         );
     }
 
@@ -2,33 +2,78 @@ package com.bs_enterprises.enterprise_backend_template.repositories.impl;
 
 import com.bs_enterprises.enterprise_backend_template.constants.MongoDBConstants;
 import com.bs_enterprises.enterprise_backend_template.keys.DatabaseKeys;
+import com.bs_enterprises.enterprise_backend_template.models.bulks.BulkInsertOptions;
+import com.bs_enterprises.enterprise_backend_template.models.bulks.BulkInsertResult;
+import com.bs_enterprises.enterprise_backend_template.models.bulks.BulkItemResult;
+import com.bs_enterprises.enterprise_backend_template.models.bulks.BulkItemStatus;
+import com.bs_enterprises.enterprise_backend_template.models.paginations.CountMode;
+import com.bs_enterprises.enterprise_backend_template.models.paginations.CursorPagination;
+import com.bs_enterprises.enterprise_backend_template.models.queries.FieldProjection;
+import com.bs_enterprises.enterprise_backend_template.models.queries.SearchMode;
+import com.bs_enterprises.enterprise_backend_template.models.queries.UpdateReturnMode;
 import com.bs_enterprises.enterprise_backend_template.repositories.BaseMongoRepositoryContract;
+import com.bs_enterprises.enterprise_backend_template.repositories.IndexContribution;
+import com.bs_enterprises.enterprise_backend_template.repositories.RepositoryWriteListener;
+import com.bs_enterprises.enterprise_backend_template.repositories.TenantIndexContributor;
+import com.bs_enterprises.enterprise_backend_template.repositories.WriteBatch;
 import com.bs_enterprises.enterprise_backend_template.services.DatabaseService;
 import com.bs_enterprises.enterprise_backend_template.services.IndexingService;
+import com.bs_enterprises.enterprise_backend_template.services.SearchExecutionService;
+import com.bs_enterprises.enterprise_backend_template.utils.CursorCodec;
 import com.bs_enterprises.enterprise_backend_template.utils.QueryBuilderUtil;
+import com.mongodb.bulk.BulkWriteError;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.util.CollectionUtils;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 @Slf4j
-public abstract class BaseMongoRepository<T> implements BaseMongoRepositoryContract<T> {
+public abstract class BaseMongoRepository<T> implements BaseMongoRepositoryContract<T>, TenantIndexContributor {
+
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+    private static final String BACKFILL_FIELDS = "fields";
 
     protected final DatabaseService databaseService;
     protected final IndexingService indexingService;
+    protected final SearchExecutionService searchExecutionService;
+
+    /**
+     * Tenants whose _search shadow is known to be complete (backfilled after index provisioning on this node).
+     * Until then PREFIX / EXACT / TEXT searches fall back to CONTAINS.
+     */
+    private final Set<String> backfilledTenants = ConcurrentHashMap.newKeySet();
+
+    private final List<RepositoryWriteListener<T>> writeListeners = new CopyOnWriteArrayList<>();
 
     /**
      * Concrete repo must provide entity class and collection name.
@@ -37,23 +82,162 @@ public abstract class BaseMongoRepository<T> implements BaseMongoRepositoryContr
 
     protected abstract String getCollectionName();
 
+    /**
+     * Fields usable with the PREFIX / EXACT / TEXT search modes. Their normalized copies are kept
+     * under _search.* on every write; the matching indexes and the backfill of existing documents
+     * run with the tenant's index provisioning.
+     */
+    protected List<String> getSearchableFields() {
+        return List.of();
+    }
+
     @Override
     public T create(T entity, String tenant) {
+        return create(entity, tenant, null);
+    }
+
+    @Override
+    public T create(T entity, String tenant, MongoTemplate optionalMongoTemplate) {
         log.info("create called — tenant='{}', entity='{}'", tenant, getEntityClass().getSimpleName());
-        MongoTemplate mongoTemplate = databaseService.changeDatabaseAndGetNewMongoTemplate(tenant);
+        MongoTemplate mongoTemplate = optionalMongoTemplate != null
+                ? optionalMongoTemplate
+                : databaseService.changeDatabaseAndGetNewMongoTemplate(tenant);
 
         try {
-            @SuppressWarnings("unchecked")
-            T saved = mongoTemplate.insert(entity, getCollectionName());
+            T saved;
+            if (getSearchableFields().isEmpty()) {
+                saved = mongoTemplate.insert(entity, getCollectionName());
+            } else {
+                Document document = (Document) SearchShadow.toWritable(mongoTemplate.getConverter(), entity, getSearchableFields());
+                mongoTemplate.insert(document, getCollectionName());
+                saved = mongoTemplate.getConverter().read(getEntityClass(), document);
+            }
             log.info("create completed — tenant='{}', entity='{}'", tenant, getEntityClass().getSimpleName());
+            databaseService.afterCommit(() -> notifyWriteListeners(listener -> listener.onCreated(tenant, saved)));
             return saved;
-        } catch (Exception ex) {
+        } catch (RuntimeException ex) {
             log.error("create failed — tenant='{}', entity='{}', error={}",
                     tenant, getEntityClass().getSimpleName(), ex.getMessage(), ex);
-            throw new IllegalStateException(DatabaseKeys.CREATION_FAILED);
+            // keep the cause: a surrounding transaction retries on its TransientTransactionError label
+            throw new IllegalStateException(DatabaseKeys.CREATION_FAILED, ex);
         }
     }
 
+    /**
+     * Bulk insert via BulkOperations, one insert command per batch.
+     * ORDERED stops at the first error (remaining items SKIPPED), UNORDERED inserts everything it can.
+     */
+    @Override
+    public BulkInsertResult createAll(Collection<T> entities, String tenant, BulkInsertOptions options) {
+        BulkInsertOptions opts = options == null ? BulkInsertOptions.defaults() : options;
+        int batchSize = Math.max(1, opts.getBatchSize());
+
+        log.info("createAll called — tenant='{}', entity='{}', count={}, ordered={}, batchSize={}",
+                tenant, getEntityClass().getSimpleName(), entities == null ? 0 : entities.size(), opts.isOrdered(), batchSize);
+
+        if (CollectionUtils.isEmpty(entities)) {
+            return BulkInsertResult.of(List.of());
+        }
+
+        MongoTemplate mongoTemplate = databaseService.changeDatabaseAndGetNewMongoTemplate(tenant);
+        BulkOperations.BulkMode bulkMode = opts.isOrdered()
+                ? BulkOperations.BulkMode.ORDERED
+                : BulkOperations.BulkMode.UNORDERED;
+
+        List<T> items = new ArrayList<>(entities);
+        BulkItemStatus[] statuses = new BulkItemStatus[items.size()];
+        String[] errors = new String[items.size()];
+        boolean aborted = false;
+
+        for (int from = 0; from < items.size(); from += batchSize) {
+            int to = Math.min(items.size(), from + batchSize);
+
+            if (aborted) {
+                Arrays.fill(statuses, from, to, BulkItemStatus.SKIPPED);
+                continue;
+            }
+
+            try {
+                mongoTemplate.bulkOps(bulkMode, getEntityClass(), getCollectionName())
+                        .insert(items.subList(from, to).stream()
+                                .map(item -> SearchShadow.toWritable(mongoTemplate.getConverter(), item, getSearchableFields()))
+                                .toList())
+                        .execute();
+                Arrays.fill(statuses, from, to, BulkItemStatus.INSERTED);
+
+            } catch (BulkOperationException ex) {
+                Arrays.fill(statuses, from, to, BulkItemStatus.INSERTED);
+                int firstError = to;
+                for (BulkWriteError error : ex.getErrors()) {
+                    int index = from + error.getIndex();
+                    statuses[index] = error.getCode() == DUPLICATE_KEY_ERROR_CODE
+                            ? BulkItemStatus.DUPLICATE_KEY
+                            : BulkItemStatus.FAILED;
+                    errors[index] = error.getMessage();
+                    firstError = Math.min(firstError, index);
+                }
+                if (opts.isOrdered()) {
+                    // the server stops at the first error of an ordered batch
+                    Arrays.fill(statuses, firstError + 1, to, BulkItemStatus.SKIPPED);
+                    aborted = true;
+                }
+                log.warn("createAll — tenant='{}', collection='{}': {} item error(s) in batch [{}, {})",
+                        tenant, getCollectionName(), ex.getErrors().size(), from, to);
+
+            } catch (Exception ex) {
+                Arrays.fill(statuses, from, to, BulkItemStatus.FAILED);
+                Arrays.fill(errors, from, to, ex.getMessage());
+                aborted = opts.isOrdered();
+                log.error("createAll — tenant='{}', collection='{}': batch [{}, {}) failed, error={}",
+                        tenant, getCollectionName(), from, to, ex.getMessage(), ex);
+            }
+        }
+
+        List<BulkItemResult> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            results.add(new BulkItemResult(i, idOf(mongoTemplate, items.get(i)), statuses[i], errors[i]));
+        }
+        BulkInsertResult result = BulkInsertResult.of(results);
+
+        if (!writeListeners.isEmpty() && result.getInserted() > 0) {
+            boolean unknownIds = false;
+            for (int i = 0; i < items.size(); i++) {
+                if (statuses[i] != BulkItemStatus.INSERTED) continue;
+                if (results.get(i).id() == null) {
+                    unknownIds = true; // generated by the server, not visible on the entity
+                    continue;
+                }
+                T inserted = items.get(i);
+                notifyWriteListeners(listener -> listener.onCreated(tenant, inserted));
+            }
+            if (unknownIds) {
+                notifyWriteListeners(listener -> listener.onBulkChange(tenant));
+            }
+        }
+
+        log.info("createAll completed — tenant='{}', collection='{}', inserted={}, duplicates={}, failed={}, skipped={}",
+                tenant, getCollectionName(), result.getInserted(), result.getDuplicates(), result.getFailed(), result.getSkipped());
+        return result;
+    }
+
+    /**
+     * Identifier of an entity as set by the caller (null when the database generates it).
+     */
+    protected Object idOf(MongoTemplate mongoTemplate, T entity) {
+        return mongoTemplate.getConverter()
+                .getMappingContext()
+                .getRequiredPersistentEntity(getEntityClass())
+                .getIdentifierAccessor(entity)
+                .getIdentifier();
+    }
+
+    @Override
+    public WriteBatch<T> writeBatch(String tenant) {
+        MongoTemplate mongoTemplate = databaseService.changeDatabaseAndGetNewMongoTemplate(tenant);
+        return new MongoWriteBatch<>(mongoTemplate, getEntityClass(), getCollectionName(), tenant, getSearchableFields(),
+                () -> notifyWriteListeners(listener -> listener.onBulkChange(tenant)));
+    }
+
     /**
      * Update by id using Map of updates (validations are expected before calling).
      * Returns the updated document using findAndModify in one round-trip.
@@ -65,11 +249,29 @@ public abstract class BaseMongoRepository<T> implements BaseMongoRepositoryContr
             List<String> allowedKeysForUpdate,
             String tenant
     ) {
+        return update(id, updates, allowedKeysForUpdate, tenant, UpdateReturnMode.NEW);
+    }
+
+    /**
+     * Update by id in exactly one round-trip (no existence pre-check):
+     * a null findAndModify result / zero matched count means the id does not exist.
+     */
+    @Override
+    public T update(
+            String id,
+            Map<String, Object> updates,
+            List<String> allowedKeysForUpdate,
+            String tenant,
+            UpdateReturnMode returnMode
+    ) {
+        UpdateReturnMode mode = returnMode == null ? UpdateReturnMode.NEW : returnMode;
+
         log.info(
-                "update called — tenant='{}', id='{}', entity='{}', fields={}",
+                "update called — tenant='{}', id='{}', entity='{}', returnMode={}, fields={}",
                 tenant,
                 id,
                 getEntityClass().getSimpleName(),
+                mode,
                 updates == null ? "{}" : updates.keySet()
         );
 
@@ -107,24 +309,7 @@ public abstract class BaseMongoRepository<T> implements BaseMongoRepositoryContr
         }
 
     /* ============================================================
-       2️⃣ Existence check
-       ============================================================ */
-
-        if (!indexingService.existsDocumentById(
-                tenant,
-                mongoTemplate,
-                id,
-                getCollectionName()
-        )) {
-            log.warn(
-                    "update — tenant='{}', id='{}': not found in collection='{}'",
-                    tenant, id, getCollectionName()
-            );
-            throw new IllegalStateException(DatabaseKeys.RECORD_NOT_FOUND);
-        }
-
-    /* ============================================================
-       3️⃣ Mongo update
+       2️⃣ Mongo update (existence is derived from the result)
        ============================================================ */
 
         Query query =
@@ -138,35 +323,33 @@ public abstract class BaseMongoRepository<T> implements BaseMongoRepositoryContr
                 update.set(key, value);
             }
         });
+        SearchShadow.applyTo(update, safeUpdates, getSearchableFields());
 
+        T updated;
+        boolean found;
 
         try {
-            FindAndModifyOptions options =
-                    new FindAndModifyOptions().returnNew(true).upsert(false);
-
-            T updated = mongoTemplate.findAndModify(
-                    query,
-                    update,
-                    options,
-                    getEntityClass(),
-                    getCollectionName()
-            );
-
-            if (updated == null) {
-                log.error(
-                        "update — tenant='{}', id='{}': findAndModify returned null for collection='{}'",
-                        tenant, id, getCollectionName()
+            if (mode == UpdateReturnMode.NONE) {
+                updated = null;
+                found = mongoTemplate.updateFirst(
+                        query,
+                        update,
+                        getEntityClass(),
+                        getCollectionName()
+                ).getMatchedCount() > 0;
+            } else {
+                FindAndModifyOptions options =
+                        new FindAndModifyOptions().returnNew(mode == UpdateReturnMode.NEW).upsert(false);
+
+                updated = mongoTemplate.findAndModify(
+                        query,
+                        update,
+                        options,
+                        getEntityClass(),
+                        getCollectionName()
                 );
-                throw new IllegalStateException(DatabaseKeys.UPDATE_FAILED);
+                found = updated != null;
             }
-
-            log.info(
-                    "update completed — tenant='{}', id='{}', entity='{}'",
-                    tenant, id, getEntityClass().getSimpleName()
-            );
-
-            return updated;
-
         } catch (Exception ex) {
             log.error(
                     "update failed — tenant='{}', id='{}', entity='{}', error={}",
@@ -178,6 +361,22 @@ public abstract class BaseMongoRepository<T> implements BaseMongoRepositoryContr
             );
             throw new IllegalStateException(DatabaseKeys.UPDATE_FAILED);
         }
+
+        if (!found) {
+            log.warn(
+                    "update — tenant='{}', id='{}': not found in collection='{}'",
+                    tenant, id, getCollectionName()
+            );
+            throw new IllegalStateException(DatabaseKeys.RECORD_NOT_FOUND);
+        }
+
+        log.info(
+                "update completed — tenant='{}', id='{}', entity='{}'",
+                tenant, id, getEntityClass().getSimpleName()
+        );
+        notifyWriteListeners(listener -> listener.onUpdated(tenant, id, safeUpdates));
+
+        return updated;
     }
 
     @Override
@@ -239,6 +438,7 @@ public abstract class BaseMongoRepository<T> implements BaseMongoRepositoryContr
 
         Update update = new Update();
         safeUpdates.forEach(update::set);
+        SearchShadow.applyTo(update, safeUpdates, getSearchableFields());
 
         try {
             var result =
@@ -250,6 +450,9 @@ public abstract class BaseMongoRepository<T> implements BaseMongoRepositoryContr
                     );
 
             long modified = result.getModifiedCount();
+            if (modified > 0) {
+                notifyWriteListeners(listener -> listener.onBulkChange(tenant));
+            }
 
             log.info(
                     "bulkUpdateByFilters completed — tenant='{}', collection='{}', modifiedCount={}",
@@ -284,6 +487,8 @@ public abstract class BaseMongoRepository<T> implements BaseMongoRepositoryContr
 
             if (result.getDeletedCount() == 0) {
                 log.warn("delete — tenant='{}', id='{}': not found in collection='{}'", tenant, id, getCollectionName());
+            } else {
+                notifyWriteListeners(listener -> listener.onDeleted(tenant, List.of(id)));
             }
 
             log.info("delete completed — tenant='{}', id='{}', entity='{}'",
@@ -305,22 +510,129 @@ public abstract class BaseMongoRepository<T> implements BaseMongoRepositoryContr
         return found;
     }
 
+    @Override
+    public List<T> getByIds(Collection<String> ids, String tenant) {
+        log.info("getByIds called — tenant='{}', entity='{}', idsCount={}",
+                tenant, getEntityClass().getSimpleName(), ids == null ? 0 : ids.size());
+
+        if (CollectionUtils.isEmpty(ids)) {
+            return List.of();
+        }
+
+        MongoTemplate mongoTemplate = databaseService.changeDatabaseAndGetNewMongoTemplate(tenant);
+        List<T> found = mongoTemplate.find(
+                new Query(Criteria.where(MongoDBConstants.FIELD_ID).in(ids)),
+                getEntityClass(),
+                getCollectionName()
+        );
+
+        // $in does not preserve the requested order
+        Map<String, T> byId = new HashMap<>();
+        found.forEach(entity -> byId.put(String.valueOf(idOf(mongoTemplate, entity)), entity));
+        List<T> ordered = ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+
+        log.info("getByIds completed — tenant='{}', entity='{}', found={}",
+                tenant, getEntityClass().getSimpleName(), ordered.size());
+        return ordered;
+    }
+
+    @Override
+    public T getById(String id, FieldProjection projection, String tenant) {
+        if (projection == null || projection.isEmpty()) {
+            return getById(id, tenant);
+        }
+
+        log.info("getById called — tenant='{}', id='{}', entity='{}', projection={}",
+                tenant, id, getEntityClass().getSimpleName(), projection);
+        MongoTemplate mongoTemplate = databaseService.changeDatabaseAndGetNewMongoTemplate(tenant);
+
+        Query query = projection.applyTo(new Query(Criteria.where(MongoDBConstants.FIELD_ID).is(id)));
+        T found = mongoTemplate.findOne(query, getEntityClass(), getCollectionName());
+        log.info("getById completed — tenant='{}', id='{}', entity='{}'", tenant, id, getEntityClass().getSimpleName());
+        return found;
+    }
+
+    /**
+     * Interface / record / DTO projection: Spring Data restricts the fetched fields to the projection's properties.
+     */
+    @Override
+    public <P> P getByIdAs(String id, Class<P> projectionType, String tenant) {
+        log.info("getByIdAs called — tenant='{}', id='{}', entity='{}', projection='{}'",
+                tenant, id, getEntityClass().getSimpleName(), projectionType.getSimpleName());
+        MongoTemplate mongoTemplate = databaseService.changeDatabaseAndGetNewMongoTemplate(tenant);
+
+        P found = mongoTemplate.query(getEntityClass())
+                .inCollection(getCollectionName())
+                .as(projectionType)
+                .matching(new Query(Criteria.where(MongoDBConstants.FIELD_ID).is(id)))
+                .oneValue();
+        log.info("getByIdAs completed — tenant='{}', id='{}', entity='{}'", tenant, id, getEntityClass().getSimpleName());
+        return found;
+    }
+
     /**
      * Generic search using QueryBuilderUtil.buildQuery(searchParams).
-     * Index-agnostic, safe for all models.
+     * Index-agnostic, safe for all models. Exact total count.
      */
     @Override
     public Page<T> search(Map<String, Object> searchParams, int page, int size, String tenant) {
+        return search(searchParams, page, size, tenant, CountMode.EXACT);
+    }
+
+    /**
+     * Generic search with a selectable count strategy.
+     * Count and page fetch are run by SearchExecutionService (parallel by default).
+     */
+    @Override
+    public Page<T> search(Map<String, Object> searchParams, int page, int size, String tenant, CountMode countMode) {
+        return doSearch(searchParams, page, size, tenant, countMode, null, getEntityClass());
+    }
+
+    /**
+     * Generic search returning only the projected fields of each entity.
+     */
+    @Override
+    public Page<T> search(Map<String, Object> searchParams,
+                          int page,
+                          int size,
+                          String tenant,
+                          CountMode countMode,
+                          FieldProjection projection) {
+        return doSearch(searchParams, page, size, tenant, countMode, projection, getEntityClass());
+    }
+
+    /**
+     * Generic search mapped into a projection interface / record / DTO.
+     */
+    @Override
+    public <P> Page<P> searchAs(Map<String, Object> searchParams,
+                                int page,
+                                int size,
+                                String tenant,
+                                CountMode countMode,
+                                Class<P> projectionType) {
+        return doSearch(searchParams, page, size, tenant, countMode, null, projectionType);
+    }
+
+    private <R> Page<R> doSearch(Map<String, Object> searchParams,
+                                 int page,
+                                 int size,
+                                 String tenant,
+                                 CountMode countMode,
+                                 FieldProjection projection,
+                                 Class<R> resultType) {
 
         // ---- Defensive pagination limits ----
         int safePage = Math.max(0, page);
         int safeSize = Math.min(Math.max(1, size), 100); // hard cap
+        CountMode mode = countMode == null ? CountMode.EXACT : countMode;
 
         log.info(
-                "search called — tenant='{}', page={}, size={}, params={}",
+                "search called — tenant='{}', page={}, size={}, countMode={}, params={}",
                 tenant,
                 safePage,
                 safeSize,
+                mode,
                 CollectionUtils.isEmpty(searchParams) ? "{}" : searchParams.keySet()
         );
 
@@ -328,28 +640,34 @@ public abstract class BaseMongoRepository<T> implements BaseMongoRepositoryContr
                 databaseService.changeDatabaseAndGetNewMongoTemplate(tenant);
 
         try {
-            Query query = QueryBuilderUtil.buildQuery(searchParams);
-
-            // ---- Count only once, before pagination ----
-            long total = mongoTemplate.count(query, getEntityClass(), getCollectionName());
-
-            // ---- Apply pagination (skip + limit) ----
+            Query query = QueryBuilderUtil.buildQuery(prepareSearchParams(searchParams, tenant));
+            if (projection != null) {
+                projection.applyTo(query);
+            }
             Pageable pageable = PageRequest.of(safePage, safeSize);
-            query.with(pageable);
 
-            List<T> items =
-                    mongoTemplate.find(query, getEntityClass(), getCollectionName());
+            Page<R> result = searchExecutionService.execute(
+                    mongoTemplate,
+                    tenant,
+                    query,
+                    pageable,
+                    getEntityClass(),
+                    resultType,
+                    getCollectionName(),
+                    mode
+            );
 
             log.info(
-                    "search completed — tenant='{}', totalMatches={}, returned={}, page={}, size={}",
+                    "search completed — tenant='{}', countMode={}, totalMatches={}, returned={}, page={}, size={}",
                     tenant,
-                    total,
-                    items.size(),
+                    mode,
+                    result.getTotalElements(),
+                    result.getNumberOfElements(),
                     safePage,
                     safeSize
             );
 
-            return new PageImpl<>(items, pageable, total);
+            return result;
 
         } catch (Exception ex) {
             log.error(
@@ -362,6 +680,247 @@ public abstract class BaseMongoRepository<T> implements BaseMongoRepositoryContr
         }
     }
 
+    /**
+     * Keyset search using QueryBuilderUtil.buildQuery(searchParams) + MongoTemplate.scroll.
+     * Seeks past the last returned (sort key, _id) instead of skipping, so every page costs the same.
+     */
+    @Override
+    public CursorPagination<T> searchByCursor(Map<String, Object> searchParams, String cursor, int size, String tenant) {
+
+        int safeSize = Math.min(Math.max(1, size), 100); // hard cap
+
+        log.info(
+                "searchByCursor called — tenant='{}', size={}, hasCursor={}, params={}",
+                tenant,
+                safeSize,
+                cursor != null && !cursor.isBlank(),
+                CollectionUtils.isEmpty(searchParams) ? "{}" : searchParams.keySet()
+        );
+
+        KeysetScrollPosition position;
+        try {
+            position = CursorCodec.decode(cursor);
+        } catch (IllegalArgumentException ex) {
+            log.warn("searchByCursor — tenant='{}': {}", tenant, ex.getMessage());
+            throw new IllegalStateException(DatabaseKeys.INVALID_QUERY_PARAMETERS);
+        }
+
+        MongoTemplate mongoTemplate =
+                databaseService.changeDatabaseAndGetNewMongoTemplate(tenant);
+
+        try {
+            Query query = QueryBuilderUtil.buildQuery(prepareSearchParams(searchParams, tenant))
+                    .limit(safeSize)
+                    .with(position);
+
+            Window<T> window =
+                    mongoTemplate.scroll(query, getEntityClass(), getCollectionName());
+
+            String nextCursor = window.hasNext() && !window.isEmpty()
+                    ? CursorCodec.encode((KeysetScrollPosition) window.positionAt(window.size() - 1))
+                    : null;
+
+            log.info(
+                    "searchByCursor completed — tenant='{}', returned={}, hasNext={}",
+                    tenant,
+                    window.size(),
+                    window.hasNext()
+            );
+
+            return new CursorPagination<>(window.getContent(), safeSize, nextCursor, window.hasNext());
+
+        } catch (Exception ex) {
+            log.error(
+                    "searchByCursor failed — tenant='{}', error={}",
+                    tenant,
+                    ex.getMessage(),
+                    ex
+            );
+            throw new IllegalStateException(DatabaseKeys.INVALID_QUERY_PARAMETERS);
+        }
+    }
+
+    /**
+     * Streams matching documents through a server-side cursor, fetched in batches of STREAM_BATCH_SIZE.
+     */
+    @Override
+    public Stream<T> stream(Map<String, Object> searchParams, FieldProjection projection, String tenant) {
+        log.info(
+                "stream called — tenant='{}', entity='{}', params={}",
+                tenant,
+                getEntityClass().getSimpleName(),
+                CollectionUtils.isEmpty(searchParams) ? "{}" : searchParams.keySet()
+        );
+
+        MongoTemplate mongoTemplate =
+                databaseService.changeDatabaseAndGetNewMongoTemplate(tenant);
+
+        try {
+            Query query = QueryBuilderUtil.buildQuery(CollectionUtils.isEmpty(searchParams)
+                            ? Map.of()
+                            : prepareSearchParams(searchParams, tenant))
+                    .cursorBatchSize(STREAM_BATCH_SIZE);
+            if (projection != null) {
+                projection.applyTo(query);
+            }
+            return mongoTemplate.stream(query, getEntityClass(), getCollectionName());
+        } catch (Exception ex) {
+            log.error(
+                    "stream failed — tenant='{}', collection='{}', error={}",
+                    tenant,
+                    getCollectionName(),
+                    ex.getMessage(),
+                    ex
+            );
+            throw new IllegalStateException(DatabaseKeys.INVALID_QUERY_PARAMETERS);
+        }
+    }
+
+    /**
+     * Rewrite the _search shadow of every document from its current field values
+     * (backfill after declaring or changing searchable fields).
+     */
+    @Override
+    public long reindexSearchFields(String tenant) {
+        List<String> fields = getSearchableFields();
+        log.info("reindexSearchFields called — tenant='{}', collection='{}', fields={}", tenant, getCollectionName(), fields);
+
+        if (fields.isEmpty()) {
+            return 0L;
+        }
+
+        MongoTemplate mongoTemplate = databaseService.changeDatabaseAndGetNewMongoTemplate(tenant);
+
+        Query query = new Query().cursorBatchSize(STREAM_BATCH_SIZE);
+        fields.forEach(field -> query.fields().include(field));
+
+        long modified = 0;
+        try (Stream<Document> documents = mongoTemplate.stream(query, Document.class, getCollectionName())) {
+            Iterator<Document> iterator = documents.iterator();
+            while (iterator.hasNext()) {
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, getCollectionName());
+                int pending = 0;
+                while (iterator.hasNext() && pending < STREAM_BATCH_SIZE) {
+                    Document document = iterator.next();
+                    bulk.updateOne(
+                            new Query(Criteria.where(MongoDBConstants.FIELD_ID).is(document.get(MongoDBConstants.FIELD_ID))),
+                            new Update().set(MongoDBConstants.FIELD_SEARCH_SHADOW, SearchShadow.shadowOf(document, fields))
+                    );
+                    pending++;
+                }
+                modified += bulk.execute().getModifiedCount();
+            }
+            mongoTemplate.upsert(
+                    new Query(Criteria.where(MongoDBConstants.FIELD_ID).is(getCollectionName())),
+                    new Update().set(BACKFILL_FIELDS, fields).set("backfilledAt", Instant.now()),
+                    MongoDBConstants.COLLECTION_SEARCH_BACKFILLS
+            );
+        } catch (Exception ex) {
+            log.error("reindexSearchFields failed — tenant='{}', collection='{}', error={}",
+                    tenant, getCollectionName(), ex.getMessage(), ex);
+            throw new IllegalStateException(DatabaseKeys.UPDATE_FAILED);
+        }
+
+        log.info("reindexSearchFields completed — tenant='{}', collection='{}', modifiedCount={}",
+                tenant, getCollectionName(), modified);
+        return modified;
+    }
+
+    /**
+     * Indexes this repository needs in every tenant database (today: the search indexes).
+     */
+    protected List<IndexDefinition> getIndexDefinitions() {
+        return SearchShadow.indexes(getSearchableFields());
+    }
+
+    @Override
+    public List<IndexContribution> tenantIndexes() {
+        List<IndexDefinition> indexes = getIndexDefinitions();
+        return indexes.isEmpty() ? List.of() : List.of(new IndexContribution(getCollectionName(), indexes));
+    }
+
+    /**
+     * Backfill the _search shadow of documents written before the searchable fields were declared or changed.
+     * A marker in {@link MongoDBConstants#COLLECTION_SEARCH_BACKFILLS} records the fields the shadow was built
+     * from, so the full rewrite only runs once per change, not on every node start.
+     */
+    @Override
+    public void afterIndexesProvisioned(String tenant) {
+        List<String> fields = getSearchableFields();
+        if (fields.isEmpty()) {
+            return;
+        }
+
+        MongoTemplate mongoTemplate = databaseService.changeDatabaseAndGetNewMongoTemplate(tenant);
+        Query upToDate = new Query(Criteria.where(MongoDBConstants.FIELD_ID).is(getCollectionName())
+                .and(BACKFILL_FIELDS).is(fields));
+        if (!mongoTemplate.exists(upToDate, MongoDBConstants.COLLECTION_SEARCH_BACKFILLS)) {
+            reindexSearchFields(tenant);
+        }
+        backfilledTenants.add(tenant);
+    }
+
+    /**
+     * For PREFIX / EXACT / TEXT: default searchFields to the declared searchable fields,
+     * reject fields that have no shadow, and use CONTAINS while the tenant is not backfilled yet.
+     */
+    private Map<String, Object> prepareSearchParams(Map<String, Object> searchParams, String tenant) {
+        if (CollectionUtils.isEmpty(searchParams) || !searchParams.containsKey(QueryBuilderUtil.SEARCH_TEXT)) {
+            return searchParams;
+        }
+
+        SearchMode mode = SearchMode.from(searchParams.get(QueryBuilderUtil.SEARCH_MODE));
+        if (mode == SearchMode.CONTAINS) {
+            return searchParams;
+        }
+
+        List<String> searchable = getSearchableFields();
+        if (searchable.isEmpty()) {
+            throw new IllegalArgumentException("Search mode " + mode + " is not enabled for " + getCollectionName());
+        }
+
+        Object requested = searchParams.get(QueryBuilderUtil.SEARCH_FIELDS);
+        if (requested != null
+                && mode.usesShadowFields()
+                && requested instanceof Collection<?> fields
+                && !searchable.containsAll(fields)) {
+            throw new IllegalArgumentException("Search mode " + mode + " only supports the fields " + searchable);
+        }
+
+        boolean backfilled = backfilledTenants.contains(tenant);
+        if (requested != null && backfilled) {
+            return searchParams;
+        }
+
+        Map<String, Object> prepared = new HashMap<>(searchParams);
+        if (requested == null) {
+            prepared.put(QueryBuilderUtil.SEARCH_FIELDS, searchable);
+        }
+        if (!backfilled) {
+            // shadow fields or text index may still be missing: slower but complete
+            log.debug("search mode {} not ready for tenant='{}', collection='{}' — using CONTAINS",
+                    mode, tenant, getCollectionName());
+            prepared.put(QueryBuilderUtil.SEARCH_MODE, SearchMode.CONTAINS.name());
+        }
+        return prepared;
+    }
+
+    @Override
+    public void addWriteListener(RepositoryWriteListener<T> listener) {
+        writeListeners.add(listener);
+    }
+
+    private void notifyWriteListeners(Consumer<RepositoryWriteListener<T>> event) {
+        for (RepositoryWriteListener<T> listener : writeListeners) {
+            try {
+                event.accept(listener);
+            } catch (Exception ex) {
+                log.warn("write listener failed — collection='{}', listener='{}', error={}",
+                        getCollectionName(), listener.getClass().getSimpleName(), ex.getMessage(), ex);
+            }
+        }
+    }
+
     @Override
     public long bulkDeleteByIds(List<String> ids, String tenant) {
         log.info("bulkDeleteByIds called — tenant='{}', entity='{}', idsCount={}",
@@ -378,6 +937,9 @@ public abstract class BaseMongoRepository<T> implements BaseMongoRepositoryContr
             Query query = new Query(Criteria.where(MongoDBConstants.FIELD_ID).in(ids));
             var result = mongoTemplate.remove(query, getEntityClass(), getCollectionName());
             long deleted = result.getDeletedCount();
+            if (deleted > 0) {
+                notifyWriteListeners(listener -> listener.onDeleted(tenant, ids));
+            }
 
             log.info("bulkDeleteByIds completed — tenant='{}', collection='{}', requested={}, deleted={}",
                     tenant, getCollectionName(), ids.size(), deleted);
@@ -405,6 +967,9 @@ public abstract class BaseMongoRepository<T> implements BaseMongoRepositoryContr
             Query query = QueryBuilderUtil.buildQuery(filters);
             var result = mongoTemplate.remove(query, getEntityClass(), getCollectionName());
             long deleted = result.getDeletedCount();
+            if (deleted > 0) {
+                notifyWriteListeners(listener -> listener.onBulkChange(tenant));
+            }
 
             log.info("bulkDeleteByFilters completed — tenant='{}', collection='{}', deleted={}",
                     tenant, getCollectionName(), deleted);
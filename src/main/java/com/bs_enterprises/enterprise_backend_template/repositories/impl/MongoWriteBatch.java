@@ -0,0 +1,243 @@
+package com.bs_enterprises.enterprise_backend_template.repositories.impl;
+
+import com.bs_enterprises.enterprise_backend_template.constants.MongoDBConstants;
+import com.bs_enterprises.enterprise_backend_template.keys.DatabaseKeys;
+import com.bs_enterprises.enterprise_backend_template.models.bulks.WriteBatchResult;
+import com.bs_enterprises.enterprise_backend_template.models.bulks.WriteOpResult;
+import com.bs_enterprises.enterprise_backend_template.models.bulks.WriteOpStatus;
+import com.bs_enterprises.enterprise_backend_template.models.bulks.WriteOpType;
+import com.bs_enterprises.enterprise_backend_template.repositories.WriteBatch;
+import com.bs_enterprises.enterprise_backend_template.utils.QueryBuilderUtil;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link WriteBatch} over {@link BulkOperations}, created by {@link BaseMongoRepository#writeBatch}.
+ */
+@Slf4j
+public class MongoWriteBatch<T> implements WriteBatch<T> {
+
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final Class<T> entityClass;
+    private final String collectionName;
+    private final String tenant;
+    private final List<String> searchableFields;
+    private final Runnable afterWrite;
+
+    private final List<Op> ops = new ArrayList<>();
+    private boolean ordered = true;
+
+    private record Op(WriteOpType type, Query query, Update update, Object document) {
+    }
+
+    MongoWriteBatch(MongoTemplate mongoTemplate,
+                    Class<T> entityClass,
+                    String collectionName,
+                    String tenant,
+                    List<String> searchableFields,
+                    Runnable afterWrite) {
+        this.mongoTemplate = mongoTemplate;
+        this.entityClass = entityClass;
+        this.collectionName = collectionName;
+        this.tenant = tenant;
+        this.searchableFields = searchableFields;
+        this.afterWrite = afterWrite;
+    }
+
+    @Override
+    public WriteBatch<T> unordered() {
+        this.ordered = false;
+        return this;
+    }
+
+    @Override
+    public WriteBatch<T> insert(T entity) {
+        ops.add(new Op(WriteOpType.INSERT, null, null, entity));
+        return this;
+    }
+
+    @Override
+    public WriteBatch<T> updateOne(String id, Map<String, Object> updates, List<String> allowedKeysForUpdate) {
+        Update update = toUpdate(updates, allowedKeysForUpdate);
+        ops.add(new Op(WriteOpType.UPDATE_ONE, byId(id), update, null));
+        return this;
+    }
+
+    @Override
+    public WriteBatch<T> updateMany(Map<String, Object> filters, Map<String, Object> updates, List<String> allowedKeysForUpdate) {
+        Update update = toUpdate(updates, allowedKeysForUpdate);
+        ops.add(new Op(WriteOpType.UPDATE_MANY, byFilters(filters), update, null));
+        return this;
+    }
+
+    @Override
+    public WriteBatch<T> replace(String id, T entity) {
+        ops.add(new Op(WriteOpType.REPLACE, byId(id), null, entity));
+        return this;
+    }
+
+    @Override
+    public WriteBatch<T> deleteById(String id) {
+        ops.add(new Op(WriteOpType.DELETE_ONE, byId(id), null, null));
+        return this;
+    }
+
+    @Override
+    public WriteBatch<T> deleteMany(Map<String, Object> filters) {
+        ops.add(new Op(WriteOpType.DELETE_MANY, byFilters(filters), null, null));
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return ops.size();
+    }
+
+    @Override
+    public WriteBatchResult execute() {
+        log.info("writeBatch.execute called — tenant='{}', collection='{}', operations={}, ordered={}",
+                tenant, collectionName, ops.size(), ordered);
+
+        if (ops.isEmpty()) {
+            return WriteBatchResult.empty();
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(
+                ordered ? BulkOperations.BulkMode.ORDERED : BulkOperations.BulkMode.UNORDERED,
+                entityClass,
+                collectionName
+        );
+        for (Op op : ops) {
+            switch (op.type()) {
+                case INSERT -> bulk.insert(SearchShadow.toWritable(mongoTemplate.getConverter(), op.document(), searchableFields));
+                case UPDATE_ONE -> bulk.updateOne(op.query(), op.update());
+                case UPDATE_MANY -> bulk.updateMulti(op.query(), op.update());
+                case REPLACE -> bulk.replaceOne(op.query(),
+                        SearchShadow.toWritable(mongoTemplate.getConverter(), op.document(), searchableFields));
+                // remove() is a deleteMany; on an _id filter it deletes at most one document
+                case DELETE_ONE, DELETE_MANY -> bulk.remove(op.query());
+            }
+        }
+
+        WriteOpStatus[] statuses = new WriteOpStatus[ops.size()];
+        String[] errors = new String[ops.size()];
+        Arrays.fill(statuses, WriteOpStatus.APPLIED);
+        BulkWriteResult writeResult = null;
+
+        try {
+            writeResult = bulk.execute();
+
+        } catch (BulkOperationException ex) {
+            writeResult = ex.getResult();
+            int firstError = ops.size();
+            for (BulkWriteError error : ex.getErrors()) {
+                statuses[error.getIndex()] = error.getCode() == DUPLICATE_KEY_ERROR_CODE
+                        ? WriteOpStatus.DUPLICATE_KEY
+                        : WriteOpStatus.FAILED;
+                errors[error.getIndex()] = error.getMessage();
+                firstError = Math.min(firstError, error.getIndex());
+            }
+            if (ordered && firstError < ops.size()) {
+                Arrays.fill(statuses, firstError + 1, ops.size(), WriteOpStatus.SKIPPED);
+            }
+            log.warn("writeBatch.execute — tenant='{}', collection='{}': {} operation error(s)",
+                    tenant, collectionName, ex.getErrors().size());
+
+        } catch (Exception ex) {
+            Arrays.fill(statuses, WriteOpStatus.FAILED);
+            Arrays.fill(errors, ex.getMessage());
+            log.error("writeBatch.execute failed — tenant='{}', collection='{}', error={}",
+                    tenant, collectionName, ex.getMessage(), ex);
+        }
+
+        List<WriteOpResult> results = new ArrayList<>(ops.size());
+        int failed = 0;
+        int skipped = 0;
+        for (int i = 0; i < ops.size(); i++) {
+            results.add(new WriteOpResult(i, ops.get(i).type(), statuses[i], errors[i]));
+            if (statuses[i] == WriteOpStatus.SKIPPED) {
+                skipped++;
+            } else if (statuses[i] != WriteOpStatus.APPLIED) {
+                failed++;
+            }
+        }
+
+        WriteBatchResult result = writeResult == null || !writeResult.wasAcknowledged()
+                ? new WriteBatchResult(0, 0, 0, 0, 0, failed, skipped, results)
+                : new WriteBatchResult(
+                writeResult.getInsertedCount(),
+                writeResult.getMatchedCount(),
+                writeResult.getModifiedCount(),
+                writeResult.getDeletedCount(),
+                writeResult.getUpserts().size(),
+                failed,
+                skipped,
+                results
+        );
+
+        if (failed + skipped < ops.size()) {
+            afterWrite.run();
+        }
+
+        log.info("writeBatch.execute completed — tenant='{}', collection='{}', inserted={}, modified={}, deleted={}, failed={}, skipped={}",
+                tenant, collectionName, result.getInserted(), result.getModified(), result.getDeleted(), failed, skipped);
+        return result;
+    }
+
+    private static Query byId(String id) {
+        return new Query(Criteria.where(MongoDBConstants.FIELD_ID).is(id));
+    }
+
+    private static Query byFilters(Map<String, Object> filters) {
+        if (filters == null || filters.isEmpty()) {
+            // same guard as bulkUpdateByFilters / bulkDeleteByFilters: never touch the whole collection
+            throw new IllegalStateException(DatabaseKeys.INVALID_QUERY_PARAMETERS);
+        }
+        return QueryBuilderUtil.buildQuery(filters);
+    }
+
+    private Update toUpdate(Map<String, Object> updates, List<String> allowedKeysForUpdate) {
+        if (updates == null || updates.isEmpty()) {
+            throw new IllegalStateException(DatabaseKeys.INVALID_UPDATE_PAYLOAD);
+        }
+
+        Map<String, Object> safeUpdates = new HashMap<>();
+        updates.forEach((key, value) -> {
+            if (allowedKeysForUpdate == null || allowedKeysForUpdate.isEmpty() || allowedKeysForUpdate.contains(key)) {
+                safeUpdates.put(key, value);
+            }
+        });
+        if (safeUpdates.isEmpty()) {
+            // never queued as a no-op: every later result would point at the wrong operation
+            log.warn("writeBatch — tenant='{}', collection='{}': no valid update fields after filtering",
+                    tenant, collectionName);
+            throw new IllegalStateException(DatabaseKeys.INVALID_UPDATE_PAYLOAD);
+        }
+
+        Update update = new Update();
+        safeUpdates.forEach((key, value) -> {
+            if (value == null) {
+                update.unset(key);
+            } else {
+                update.set(key, value);
+            }
+        });
+        SearchShadow.applyTo(update, safeUpdates, searchableFields);
+        return update;
+    }
+}
@@ -0,0 +1,104 @@
+package com.bs_enterprises.enterprise_backend_template.repositories.impl;
+
+import com.bs_enterprises.enterprise_backend_template.constants.MongoDBConstants;
+import com.bs_enterprises.enterprise_backend_template.utils.SearchTextNormalizer;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the {@code _search} sub-document: one normalized copy per searchable field,
+ * written together with the entity so PREFIX / EXACT search can use a plain ascending index.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class SearchShadow {
+
+    static final String TEXT_INDEX_NAME = "search_text";
+
+    /**
+     * The entity as it should be inserted: unchanged when there is nothing to shadow,
+     * otherwise its mapped Document with the _search sub-document added.
+     */
+    static Object toWritable(MongoConverter converter, Object entity, List<String> searchableFields) {
+        if (searchableFields.isEmpty() || entity instanceof Document) {
+            return entity;
+        }
+        Document document = new Document();
+        converter.write(entity, document);
+        document.put(MongoDBConstants.FIELD_SEARCH_SHADOW, shadowOf(document, searchableFields));
+        return document;
+    }
+
+    static Document shadowOf(Document source, List<String> searchableFields) {
+        Document shadow = new Document();
+        for (String field : searchableFields) {
+            Object value = valueAt(source, field);
+            if (value != null) {
+                shadow.put(shadowKey(field), SearchTextNormalizer.normalize(value.toString()));
+            }
+        }
+        return shadow;
+    }
+
+    /**
+     * Mirror field-level updates of searchable fields into the shadow (null → unset).
+     * Updates that replace a whole parent object of a nested searchable field are not mirrored.
+     */
+    static void applyTo(Update update, Map<String, Object> safeUpdates, List<String> searchableFields) {
+        for (String field : searchableFields) {
+            if (!safeUpdates.containsKey(field)) {
+                continue;
+            }
+            Object value = safeUpdates.get(field);
+            if (value == null) {
+                update.unset(SearchTextNormalizer.shadowPath(field));
+            } else {
+                update.set(SearchTextNormalizer.shadowPath(field), SearchTextNormalizer.normalize(value.toString()));
+            }
+        }
+    }
+
+    /**
+     * One ascending index per shadow field (PREFIX / EXACT) plus a single text index over the raw fields (TEXT).
+     */
+    static List<IndexDefinition> indexes(List<String> searchableFields) {
+        List<IndexDefinition> indexes = new ArrayList<>(searchableFields.size() + 1);
+        for (String field : searchableFields) {
+            indexes.add(new Index()
+                    .on(SearchTextNormalizer.shadowPath(field), Sort.Direction.ASC)
+                    .named("search_" + shadowKey(field)));
+        }
+        if (!searchableFields.isEmpty()) {
+            indexes.add(new TextIndexDefinition.TextIndexDefinitionBuilder()
+                    .onFields(searchableFields.toArray(String[]::new))
+                    .named(TEXT_INDEX_NAME)
+                    .build());
+        }
+        return indexes;
+    }
+
+    private static String shadowKey(String field) {
+        return field.replace('.', '_');
+    }
+
+    private static Object valueAt(Document source, String path) {
+        Object current = source;
+        for (String part : path.split("\\.")) {
+            if (!(current instanceof Map<?, ?> map)) {
+                return null;
+            }
+            current = map.get(part);
+        }
+        return current;
+    }
+}
@@ -0,0 +1,39 @@
+package com.bs_enterprises.enterprise_backend_template.services;
+
+import com.bs_enterprises.enterprise_backend_template.models.exports.ExportFormat;
+import com.bs_enterprises.enterprise_backend_template.models.queries.FieldProjection;
+import com.bs_enterprises.enterprise_backend_template.repositories.BaseMongoRepositoryContract;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Streams a whole (filtered) tenant collection as NDJSON or CSV.
+ * Documents are read through a Mongo cursor and written one by one, so memory stays constant;
+ * the cursor only advances as fast as the client consumes the response (blocking writes = backpressure).
+ */
+public interface DataExportService {
+
+    /**
+     * Build a response body for a controller, e.g.
+     * {@code ResponseEntity.ok().contentType(MediaType.parseMediaType(format.getContentType())).body(body)}.
+     */
+    <T> StreamingResponseBody export(BaseMongoRepositoryContract<T> repository,
+                                     Class<T> type,
+                                     Map<String, Object> searchParams,
+                                     FieldProjection projection,
+                                     String tenant,
+                                     ExportFormat format);
+
+    /**
+     * Write the export to the given stream on the calling thread. Returns the number of exported documents.
+     */
+    <T> long exportTo(OutputStream outputStream,
+                      BaseMongoRepositoryContract<T> repository,
+                      Class<T> type,
+                      Map<String, Object> searchParams,
+                      FieldProjection projection,
+                      String tenant,
+                      ExportFormat format);
+}
@@ -4,6 +4,7 @@ import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Service for managing MongoDB database connections and administrative operations.
@@ -13,13 +14,29 @@ public interface DatabaseService {
 
 
     /**
-     * Switch to a new MongoDB database and return a new MongoTemplate instance.
+     * Return the MongoTemplate bound to the given database.
+     * Templates are built once per tenant and reused from a bounded, idle-evicted registry.
      *
      * @param newDatabaseName name of the database to switch to
-     * @return new MongoTemplate bound to the specified database
+     * @return MongoTemplate bound to the specified database
      */
     MongoTemplate changeDatabaseAndGetNewMongoTemplate(String newDatabaseName);
 
+    /**
+     * Run the work in one multi-document transaction on the tenant database (requires a replica set or
+     * sharded cluster). The work receives a session-bound template: use only that template, from the calling
+     * thread, and expect the work to be re-run on transient transaction errors.
+     *
+     * @return the work's result, once committed
+     */
+    <T> T inTransaction(String tenant, Function<MongoTemplate, T> work);
+
+    /**
+     * Run the action once the transaction running on this thread ({@link #inTransaction}) has committed;
+     * dropped if it aborts. Outside a transaction the action runs right away.
+     */
+    void afterCommit(Runnable action);
+
     /**
      * Drop a MongoDB database by its name (realm). This is irreversible.
      *
@@ -3,7 +3,11 @@ package com.bs_enterprises.enterprise_backend_template.services;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public interface IndexingService {
@@ -12,16 +16,79 @@ public interface IndexingService {
 
     boolean isValueExists(String tenant, MongoTemplate optionalMongoTemplate, String value, String collectionName);
 
+    /**
+     * Batch form of {@link #isValueExists}: one $in per index collection, the collections queried in parallel.
+     *
+     * @param valuesByCollection index collection → candidate values (null / blank values are ignored)
+     * @return index collection → candidates already taken; collections without a conflict are absent
+     */
+    Map<String, Set<String>> findExistingValues(String tenant,
+                                                MongoTemplate optionalMongoTemplate,
+                                                Map<String, ? extends Collection<String>> valuesByCollection);
+
+    /**
+     * Reserve unique values in one round trip: an unordered insert of expiring index entries per collection
+     * (collections in parallel), the unique _id rejecting values that are taken or reserved. Reservations whose
+     * TTL has passed but that MongoDB has not removed yet are taken over. All or nothing: on any collision,
+     * nothing stays reserved.
+     *
+     * @param owner token recorded on every reservation; confirm and release must pass the same one
+     * @return index collection → values that collided; empty when everything is reserved
+     */
+    Map<String, Set<String>> reserveValues(String tenant,
+                                           MongoTemplate optionalMongoTemplate,
+                                           String owner,
+                                           Map<String, ? extends Collection<String>> valuesByCollection,
+                                           Duration ttl);
+
+    /**
+     * Make the owner's reservations permanent. A reservation that lapsed and was removed is recreated; a value
+     * held by anyone else (taken over after it lapsed, or registered directly) fails the call with a
+     * DuplicateKeyException, the owner's other values being confirmed or not.
+     * Like every batch method here, collections are written in parallel unless a template is passed in:
+     * that one may be session-bound (transaction) and is only used from the calling thread.
+     */
+    void confirmValues(String tenant,
+                       MongoTemplate optionalMongoTemplate,
+                       String owner,
+                       Map<String, ? extends Collection<String>> valuesByCollection);
+
+    /**
+     * Drop the owner's entries for these values, reserved or already confirmed (rollback of a half-done
+     * confirmation); entries held by anyone else are left alone.
+     */
+    void releaseValues(String tenant,
+                       MongoTemplate optionalMongoTemplate,
+                       String owner,
+                       Map<String, ? extends Collection<String>> valuesByCollection);
+
     void deleteIndexEntry(String tenant, MongoTemplate optionalMongoTemplate, String value, String collectionName);
 
     long countDocumentsInCollection(String tenant, MongoTemplate optionalMongoTemplate, String collectionName);
 
+    /**
+     * _id-only existence check (no document is decoded); reference collections answer from the existence cache.
+     */
     boolean existsDocumentById(String tenant, MongoTemplate optionalMongoTemplate, String id, String collectionName);
 
+    /**
+     * True when every id exists (also for a null / empty list); see {@link #findMissingIds}.
+     */
     boolean existsAllDocumentsByIds(
             String tenant,
             MongoTemplate optionalMongoTemplate,
             List<String> ids,
             String collectionName
     );
+
+    /**
+     * The ids that do not exist in the collection: one covered $in query (_id projection only) for the ids
+     * not already known to exist. For the collections in properties.mongodb.existence-cache, ids found are
+     * remembered per tenant for a short TTL (positive answers only: a newly created document is never
+     * reported missing, a deleted one may still be reported present until the TTL passes).
+     */
+    Set<String> findMissingIds(String tenant,
+                               MongoTemplate optionalMongoTemplate,
+                               Collection<String> ids,
+                               String collectionName);
 }
@@ -1,9 +1,11 @@
 package com.bs_enterprises.enterprise_backend_template.services;
 
+import com.bs_enterprises.enterprise_backend_template.models.users.KeycloakBulkCreateResult;
 import com.bs_enterprises.enterprise_backend_template.models.users.KeycloakUserModel;
 import org.keycloak.representations.idm.UserRepresentation;
 
 import java.util.List;
+import java.util.Set;
 
 public interface KeycloakUserService {
 
@@ -13,6 +15,14 @@ public interface KeycloakUserService {
      */
     String createUser(String realmName, KeycloakUserModel model);
 
+    /**
+     * Create many users through the realm partial-import endpoint, properties.keycloak.bulk-import-chunk-size
+     * users per call. Users that already exist (username or email) are skipped by Keycloak and reported failed;
+     * a rejected call fails the users of its chunk only. Keycloak generates the ids; results are matched back
+     * to the local ids by username.
+     */
+    KeycloakBulkCreateResult createUsers(String realmName, List<KeycloakUserModel> models);
+
     /**
      * Get a user by id and ensure it belongs to the studio (studioId attribute).
      */
@@ -23,6 +33,13 @@ public interface KeycloakUserService {
      */
     void updateUser(String realmName, String userId, KeycloakUserModel model);
 
+    /**
+     * Partial update without reading the user first: only the given fields (firstName, lastName, email, enabled,
+     * emailVerified) are sent, with their values from the model; Keycloak keeps everything else as it is.
+     * Username changes are rejected, as in {@link #updateUser}.
+     */
+    void updateUserFields(String realmName, String userId, KeycloakUserModel model, Set<String> fields);
+
     /**
      * Delete a user by id after verifying studio ownership.
      */
@@ -0,0 +1,39 @@
+package com.bs_enterprises.enterprise_backend_template.services;
+
+import com.bs_enterprises.enterprise_backend_template.models.paginations.CountMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Computes search totals according to a {@link CountMode}.
+ */
+public interface QueryCountService {
+
+    /**
+     * Total reported when the mode does not count (NONE).
+     */
+    long UNKNOWN_TOTAL = -1L;
+
+    /**
+     * Count synchronously on the calling thread.
+     */
+    long count(MongoTemplate mongoTemplate,
+               String tenant,
+               Query query,
+               Class<?> entityClass,
+               String collectionName,
+               CountMode countMode);
+
+    /**
+     * Count on a virtual thread so the caller can fetch the page at the same time.
+     * The query must not be mutated by the caller afterwards. Cancelling the future interrupts the count.
+     */
+    CompletableFuture<Long> countAsync(MongoTemplate mongoTemplate,
+                                       String tenant,
+                                       Query query,
+                                       Class<?> entityClass,
+                                       String collectionName,
+                                       CountMode countMode);
+}
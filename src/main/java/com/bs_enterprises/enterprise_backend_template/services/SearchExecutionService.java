@@ -0,0 +1,37 @@
+package com.bs_enterprises.enterprise_backend_template.services;
+
+import com.bs_enterprises.enterprise_backend_template.models.paginations.CountMode;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Runs the count + page fetch of an offset search, either one after the other or in parallel
+ * (see properties.mongodb.search.execution-mode), and records per-phase timings.
+ */
+public interface SearchExecutionService {
+
+    /**
+     * @param query unpaged query (filters + sort); it is not mutated
+     */
+    <T> Page<T> execute(MongoTemplate mongoTemplate,
+                        String tenant,
+                        Query query,
+                        Pageable pageable,
+                        Class<T> entityClass,
+                        String collectionName,
+                        CountMode countMode);
+
+    /**
+     * Same as above, mapping results into {@code resultType} (entity, interface or DTO projection).
+     */
+    <S, R> Page<R> execute(MongoTemplate mongoTemplate,
+                           String tenant,
+                           Query query,
+                           Pageable pageable,
+                           Class<S> entityClass,
+                           Class<R> resultType,
+                           String collectionName,
+                           CountMode countMode);
+}
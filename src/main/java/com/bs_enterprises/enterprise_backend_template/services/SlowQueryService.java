@@ -0,0 +1,18 @@
+package com.bs_enterprises.enterprise_backend_template.services;
+
+import com.bs_enterprises.enterprise_backend_template.models.diagnostics.SlowQueryPlan;
+
+import java.util.List;
+
+/**
+ * Latency of every MongoDB command per tenant / collection / command, and the explain plans
+ * of commands slower than properties.mongodb.slow-query.threshold (most recent first, this node only).
+ */
+public interface SlowQueryService {
+
+    List<SlowQueryPlan> capturedPlans();
+
+    List<SlowQueryPlan> capturedPlans(String tenant);
+
+    void clearCapturedPlans();
+}
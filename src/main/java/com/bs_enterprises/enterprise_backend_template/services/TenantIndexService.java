@@ -0,0 +1,26 @@
+package com.bs_enterprises.enterprise_backend_template.services;
+
+import com.bs_enterprises.enterprise_backend_template.models.indexes.TenantIndexReport;
+
+import java.util.Map;
+
+/**
+ * Creates the secondary indexes of tenant databases: the ones declared on @Document entities
+ * (@Indexed, @CompoundIndex, ...) and the ones contributed by repositories / services.
+ */
+public interface TenantIndexService {
+
+    /**
+     * Provision in the background unless the tenant is already provisioned (or being provisioned) on this node.
+     */
+    void provisionAsync(String tenant);
+
+    /**
+     * Provision now, even if already done (createIndex is idempotent), and return the result.
+     */
+    TenantIndexReport provision(String tenant);
+
+    Map<String, TenantIndexReport> reports();
+
+    TenantIndexReport report(String tenant);
+}
@@ -9,8 +9,9 @@ import java.util.Map;
 public interface UserAccountService {
 
     /**
-     * Ensure id exists (generate if missing) and perform uniqueness checks for uid/email/phone.
-     * Returns the final id to use.
+     * Ensure id exists (generate if missing) and reserve uid/email/phone (uniqueness is enforced by the reservation).
+     * Returns the final id to use. Reservations expire after properties.mongodb.reservation.ttl unless
+     * provisionNewUser confirms them.
      */
     String prepareAndValidateIdentifiers(String realmName,
                                          String userId,
@@ -24,7 +25,9 @@ public interface UserAccountService {
      * - create user in Keycloak
      * - persist KeycloakUserModel via repository
      * - persist UserSecrets via UserSecretService
-     * - create index entries for uid/email/phone
+     * - confirm the uid/email/phone reservations
+     * The Mongo writes run in one transaction when properties.mongodb.provisioning.transactional is on.
+     * If they fail, the Keycloak user is deleted and the reservations are released.
      */
     void provisionNewUser(String realmName, KeycloakUserModel kcUser);
 
@@ -35,6 +38,7 @@ public interface UserAccountService {
 
     /**
      * Apply updates to kcUser, manage index updates for email/phone and persist.
+     * Keycloak is only called when a field it stores changed, with a partial update of those fields.
      * AllowedKeys controls which kcUser fields this method will accept updates for.
      * Returns the persisted KeycloakUserModel.
      */
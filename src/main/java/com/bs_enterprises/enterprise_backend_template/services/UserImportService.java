@@ -0,0 +1,35 @@
+package com.bs_enterprises.enterprise_backend_template.services;
+
+import com.bs_enterprises.enterprise_backend_template.models.exports.ExportFormat;
+import com.bs_enterprises.enterprise_backend_template.models.imports.ImportJob;
+
+import java.io.InputStream;
+
+/**
+ * Bulk user import from a CSV (header row, KeycloakUserModel property names as columns) or NDJSON upload.
+ * <p>
+ * The upload is read as a stream, chunk by chunk (properties.mongodb.user-import.chunk-size): each chunk is
+ * validated, checked against the index collections in one round trip, reserved, created in Keycloak with a
+ * node-wide concurrency limit and written to MongoDB with bulk inserts. Progress and row errors are kept on an
+ * {@link ImportJob} in the tenant's import_jobs collection after every chunk.
+ */
+public interface UserImportService {
+
+    /**
+     * Register a job, so its id can be handed out (progress polling) before the upload is read.
+     */
+    ImportJob createJob(String tenant, ExportFormat format);
+
+    /**
+     * Read the upload on the calling thread and import it; returns the job once the stream is exhausted or the
+     * job failed. A FAILED job, or a RUNNING one without progress for properties.mongodb.user-import.stale-after
+     * (crashed node), is resumed by calling this again with the same file: rows already handled are skipped and
+     * the interrupted chunk is cleaned up first. A COMPLETED job is returned unchanged.
+     * <p>
+     * Rows whose Keycloak create was in flight during a crash may exist in Keycloak without a local user;
+     * on resume their Keycloak create fails (conflict) and they are reported as row errors.
+     */
+    ImportJob runJob(String tenant, String jobId, InputStream input);
+
+    ImportJob getJob(String tenant, String jobId);
+}
@@ -4,11 +4,19 @@ import com.bs_enterprises.enterprise_backend_template.models.users.UserSecrets;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.Set;
+
 @Service
 public interface UserSecretService {
 
     UserSecrets save(UserSecrets userSecrets, String tenant, MongoTemplate optionalMongoTemplate);
 
+    /**
+     * Unordered bulk insert. Returns the ids that were not inserted (duplicates and other item errors).
+     */
+    Set<String> saveAll(Collection<UserSecrets> userSecrets, String tenant, MongoTemplate optionalMongoTemplate);
+
     UserSecrets update(UserSecrets userSecrets, String tenant, MongoTemplate optionalMongoTemplate);
 
     UserSecrets findById(String id, String tenant, MongoTemplate optionalMongoTemplate);
@@ -0,0 +1,28 @@
+package com.bs_enterprises.enterprise_backend_template.services;
+
+import com.bs_enterprises.enterprise_backend_template.models.users.KeycloakUserModel;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Typeahead over a tenant's user directory (firstName, lastName, email, phone) from an in-memory n-gram index.
+ * Only present when properties.mongodb.typeahead.enabled=true.
+ */
+public interface UserTypeaheadService {
+
+    /**
+     * Matching user ids, best matches first (in-memory only, no database access once the tenant is loaded).
+     */
+    List<String> suggestIds(String realmName, String text, int limit);
+
+    /**
+     * Matching users, hydrated with a single $in query, in ranking order.
+     */
+    List<KeycloakUserModel> suggest(String realmName, String text, int limit);
+
+    /**
+     * Reload the tenant's index from MongoDB in the background; queries keep using the current index meanwhile.
+     */
+    CompletableFuture<Void> rebuild(String realmName);
+}
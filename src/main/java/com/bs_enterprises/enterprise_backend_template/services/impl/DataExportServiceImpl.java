@@ -0,0 +1,103 @@
+package com.bs_enterprises.enterprise_backend_template.services.impl;
+
+import com.bs_enterprises.enterprise_backend_template.models.exports.ExportFormat;
+import com.bs_enterprises.enterprise_backend_template.models.queries.FieldProjection;
+import com.bs_enterprises.enterprise_backend_template.repositories.BaseMongoRepositoryContract;
+import com.bs_enterprises.enterprise_backend_template.services.DataExportService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+public class DataExportServiceImpl implements DataExportService {
+
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper;
+
+    public DataExportServiceImpl(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.csvMapper = CsvMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    @Override
+    public <T> StreamingResponseBody export(BaseMongoRepositoryContract<T> repository,
+                                            Class<T> type,
+                                            Map<String, Object> searchParams,
+                                            FieldProjection projection,
+                                            String tenant,
+                                            ExportFormat format) {
+        return outputStream -> exportTo(outputStream, repository, type, searchParams, projection, tenant, format);
+    }
+
+    @Override
+    public <T> long exportTo(OutputStream outputStream,
+                             BaseMongoRepositoryContract<T> repository,
+                             Class<T> type,
+                             Map<String, Object> searchParams,
+                             FieldProjection projection,
+                             String tenant,
+                             ExportFormat format) {
+        log.info("export started — tenant='{}', type='{}', format={}", tenant, type.getSimpleName(), format);
+        AtomicLong exported = new AtomicLong();
+
+        try (Stream<T> documents = repository.stream(searchParams, projection, tenant);
+             SequenceWriter writer = writerFor(type, projection, format).writeValues(outputStream)) {
+
+            documents.forEach(document -> {
+                try {
+                    writer.write(document);
+                    exported.incrementAndGet();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            writer.flush();
+        } catch (IOException | UncheckedIOException ex) {
+            // usually the client went away; the cursor is closed by try-with-resources
+            log.warn("export aborted — tenant='{}', type='{}', exported={}, error={}",
+                    tenant, type.getSimpleName(), exported.get(), ex.getMessage());
+            throw ex instanceof UncheckedIOException unchecked ? unchecked : new UncheckedIOException((IOException) ex);
+        }
+
+        log.info("export completed — tenant='{}', type='{}', format={}, exported={}",
+                tenant, type.getSimpleName(), format, exported.get());
+        return exported.get();
+    }
+
+    /**
+     * The target stream is left open; closing it is up to the caller / servlet container.
+     */
+    private ObjectWriter writerFor(Class<?> type, FieldProjection projection, ExportFormat format) {
+        if (format == ExportFormat.CSV) {
+            ObjectWriter writer = csvMapper.writerFor(type).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (projection != null && !projection.includes().isEmpty()) {
+                // only the projected columns; other (unset) properties are skipped
+                CsvSchema.Builder columns = CsvSchema.builder();
+                projection.includes().forEach(columns::addColumn);
+                return writer.with(columns.build().withHeader()).with(JsonGenerator.Feature.IGNORE_UNKNOWN);
+            }
+            return writer.with(csvMapper.schemaFor(type).withHeader());
+        }
+        return objectMapper.writerFor(type)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n");
+    }
+}
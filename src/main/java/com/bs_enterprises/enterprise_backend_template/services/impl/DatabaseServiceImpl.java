@@ -1,34 +1,188 @@
 package com.bs_enterprises.enterprise_backend_template.services.impl;
 
+import com.bs_enterprises.enterprise_backend_template.config.MongoTenantProperties;
+import com.bs_enterprises.enterprise_backend_template.events.TenantDatabaseDroppedEvent;
+import com.bs_enterprises.enterprise_backend_template.events.TenantTemplateCreatedEvent;
+import com.bs_enterprises.enterprise_backend_template.models.users.IndexEntry;
 import com.bs_enterprises.enterprise_backend_template.services.DatabaseService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.mongodb.MongoException;
+import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoDatabase;
-import lombok.AllArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.domain.EntityScanner;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Service for managing MongoDB database connections and administrative operations.
+ * <p>
+ * Tenant MongoTemplates are built once and kept in a bounded registry (size + idle eviction),
+ * exported to Micrometer as the "mongo.tenant.templates" cache (hits, misses, evictions).
+ * All tenant templates share one mapping context and converter, built at startup.
+ * Building a template publishes a {@link TenantTemplateCreatedEvent} (tenant index provisioning hooks in there).
  */
 @Component
-@AllArgsConstructor
 @Slf4j
 public class DatabaseServiceImpl implements DatabaseService {
 
+    private static final String TEMPLATE_CACHE_NAME = "mongo.tenant.templates";
+
     private final MongoClient mongoClient;
+    private final MappingMongoConverter mongoConverter;
+    private final Cache<String, MongoTemplate> mongoTemplates;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * After-commit actions of the transaction running on this thread; null outside {@link #inTransaction}.
+     */
+    private final ThreadLocal<List<Runnable>> afterCommitActions = new ThreadLocal<>();
+
+    public DatabaseServiceImpl(MongoClient mongoClient,
+                               MongoTenantProperties mongoTenantProperties,
+                               MongoCustomConversions mongoCustomConversions,
+                               ApplicationContext applicationContext,
+                               MeterRegistry meterRegistry) throws ClassNotFoundException {
+        this.mongoClient = mongoClient;
+        this.eventPublisher = applicationContext;
+        this.mongoConverter = createSharedConverter(mongoCustomConversions, applicationContext);
+
+        MongoTenantProperties.TemplateCache cacheProperties = mongoTenantProperties.getTemplateCache();
+        this.mongoTemplates = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaximumSize())
+                .expireAfterAccess(cacheProperties.getExpireAfterAccess())
+                .recordStats()
+                .<String, MongoTemplate>removalListener((tenant, template, cause) -> {
+                    if (cause != RemovalCause.EXPLICIT) {
+                        log.debug("MongoTemplate for tenant '{}' evicted ({})", tenant, cause);
+                    }
+                })
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, this.mongoTemplates, TEMPLATE_CACHE_NAME);
+    }
 
     /**
-     * Switch to a new MongoDB database and return a new MongoTemplate instance.
+     * Return the MongoTemplate bound to the given database, building it on first use.
      *
-     * @param newDatabaseName name of the database to switch to
-     * @return new MongoTemplate bound to the specified database
+     * @param newDatabaseName name of the database (tenant) to switch to
+     * @return cached MongoTemplate bound to the specified database
      */
     public MongoTemplate changeDatabaseAndGetNewMongoTemplate(String newDatabaseName) {
-        return new MongoTemplate(this.mongoClient, newDatabaseName);
+        return mongoTemplates.get(newDatabaseName, this::createMongoTemplate);
+    }
+
+    private MongoTemplate createMongoTemplate(String databaseName) {
+        log.info("Building MongoTemplate for tenant database '{}'", databaseName);
+        MongoTemplate template =
+                new MongoTemplate(new SimpleMongoClientDatabaseFactory(this.mongoClient, databaseName), this.mongoConverter);
+        eventPublisher.publishEvent(new TenantTemplateCreatedEvent(databaseName));
+        return template;
+    }
+
+    /**
+     * Build the mapping context + converter shared by every tenant template.
+     * Entities are introspected once here, so heap stays flat as the tenant count grows
+     * and the first request for a new tenant does no metadata work.
+     * <p>
+     * Auto index creation stays off: it would run for every new tenant template and rebind
+     * the shared context's event publisher. DBRefs are not resolved (no tenant model uses them).
+     */
+    private static MappingMongoConverter createSharedConverter(MongoCustomConversions conversions,
+                                                               ApplicationContext applicationContext)
+            throws ClassNotFoundException {
+        Set<Class<?>> initialEntitySet = new HashSet<>(new EntityScanner(applicationContext).scan(Document.class));
+        initialEntitySet.add(IndexEntry.class);
+
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setInitialEntitySet(initialEntitySet);
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.setAutoIndexCreation(false);
+        mappingContext.afterPropertiesSet();
+
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        log.info("Shared tenant mapping context initialized with {} entities", initialEntitySet.size());
+        return converter;
+    }
+
+    /**
+     * Run the work in a multi-document transaction on the tenant database. The template handed to the work is
+     * bound to the session: writes through it commit or abort together. withTransaction retries the whole
+     * work on transient transaction errors, so it must not have side effects outside MongoDB (those go through
+     * {@link #afterCommit}).
+     */
+    @Override
+    public <T> T inTransaction(String tenant, Function<MongoTemplate, T> work) {
+        MongoTemplate mongoTemplate = changeDatabaseAndGetNewMongoTemplate(tenant);
+        List<Runnable> actions = new ArrayList<>();
+        List<Runnable> outer = afterCommitActions.get();
+        afterCommitActions.set(actions);
+        T result;
+        try (ClientSession session = mongoClient.startSession()) {
+            result = session.withTransaction(() -> {
+                actions.clear(); // a retried attempt registers its own
+                try {
+                    return work.apply(mongoTemplate.withSession(session));
+                } catch (RuntimeException ex) {
+                    throw transientTransactionError(ex);
+                }
+            });
+        } finally {
+            if (outer == null) {
+                afterCommitActions.remove();
+            } else {
+                afterCommitActions.set(outer);
+            }
+        }
+        actions.forEach(Runnable::run);
+        return result;
+    }
+
+    @Override
+    public void afterCommit(Runnable action) {
+        List<Runnable> actions = afterCommitActions.get();
+        if (actions == null) {
+            action.run();
+        } else {
+            actions.add(action);
+        }
+    }
+
+    /**
+     * withTransaction only retries a MongoException labelled TransientTransactionError, but MongoTemplate
+     * translates driver errors into DataAccessExceptions and repositories wrap them again (CREATION_FAILED):
+     * hand it the driver's exception when anything in the cause chain carries the label.
+     */
+    private static RuntimeException transientTransactionError(RuntimeException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException
+                    && mongoException.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+                return mongoException;
+            }
+        }
+        return ex;
     }
 
     /**
@@ -47,6 +201,8 @@ public class DatabaseServiceImpl implements DatabaseService {
 
             MongoDatabase db = mongoClient.getDatabase(databaseName);
             db.drop();
+            mongoTemplates.invalidate(databaseName);
+            eventPublisher.publishEvent(new TenantDatabaseDroppedEvent(databaseName));
             log.info("✅ Successfully dropped MongoDB database: {}", databaseName);
             return true;
         } catch (Exception e) {
@@ -1,26 +1,78 @@
 package com.bs_enterprises.enterprise_backend_template.services.impl;
 
+import com.bs_enterprises.enterprise_backend_template.config.ConcurrencyConfig;
+import com.bs_enterprises.enterprise_backend_template.config.MongoTenantProperties;
 import com.bs_enterprises.enterprise_backend_template.constants.MongoDBConstants;
 import com.bs_enterprises.enterprise_backend_template.models.users.IndexEntry;
+import com.bs_enterprises.enterprise_backend_template.repositories.IndexContribution;
+import com.bs_enterprises.enterprise_backend_template.repositories.TenantIndexContributor;
 import com.bs_enterprises.enterprise_backend_template.services.DatabaseService;
 import com.bs_enterprises.enterprise_backend_template.services.IndexingService;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
-public class IndexingServiceImpl implements IndexingService {
+public class IndexingServiceImpl implements IndexingService, TenantIndexContributor {
 
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+    private static final String RESERVATION_TTL_INDEX = "reservation_ttl";
+    private static final String EXISTENCE_CACHE_NAME = "mongo.reference.existence";
 
     private final DatabaseService databaseService;
+    private final ExecutorService executor;
+    private final Set<String> existenceCachedCollections;
+    private final Cache<String, Boolean> existenceCache;
+
+    public IndexingServiceImpl(DatabaseService databaseService,
+                               @Qualifier(ConcurrencyConfig.VIRTUAL_THREAD_EXECUTOR) ExecutorService executor,
+                               MongoTenantProperties mongoTenantProperties,
+                               MeterRegistry meterRegistry) {
+        this.databaseService = databaseService;
+        this.executor = executor;
+
+        MongoTenantProperties.ExistenceCache cacheProperties = mongoTenantProperties.getExistenceCache();
+        this.existenceCachedCollections = Set.copyOf(cacheProperties.getCollections());
+        this.existenceCache = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaximumSize())
+                .expireAfterWrite(cacheProperties.getTtl())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, this.existenceCache, EXISTENCE_CACHE_NAME);
+    }
 
     public void createIndexEntry(String tenant, MongoTemplate optionalMongoTemplate, String value, String collectionName) {
         MongoTemplate mongoTemplate = getMongoTemplate(tenant, optionalMongoTemplate);
@@ -54,6 +106,278 @@ public class IndexingServiceImpl implements IndexingService {
         return exists;
     }
 
+    @Override
+    public Map<String, Set<String>> findExistingValues(String tenant,
+                                                       MongoTemplate optionalMongoTemplate,
+                                                       Map<String, ? extends Collection<String>> valuesByCollection) {
+        Map<String, List<String>> lookups = candidates(valuesByCollection);
+        if (lookups.isEmpty()) {
+            return Map.of();
+        }
+
+        MongoTemplate mongoTemplate = getMongoTemplate(tenant, optionalMongoTemplate);
+        Map<String, Set<String>> existing = new LinkedHashMap<>();
+        perCollection(lookups, optionalMongoTemplate, (collectionName, values) -> findExistingIds(mongoTemplate, values, collectionName))
+                .forEach((collectionName, found) -> {
+                    if (!found.isEmpty()) {
+                        existing.put(collectionName, found);
+                    }
+                });
+
+        log.info("Checked existence of values in collections: {} - Conflicts in: {}", lookups.keySet(), existing.keySet());
+        return existing;
+    }
+
+    @Override
+    public Map<String, Set<String>> reserveValues(String tenant,
+                                                  MongoTemplate optionalMongoTemplate,
+                                                  String owner,
+                                                  Map<String, ? extends Collection<String>> valuesByCollection,
+                                                  Duration ttl) {
+        Map<String, List<String>> reservations = candidates(valuesByCollection);
+        if (reservations.isEmpty()) {
+            return Map.of();
+        }
+
+        MongoTemplate mongoTemplate = getMongoTemplate(tenant, optionalMongoTemplate);
+        Instant reservedUntil = Instant.now().plus(ttl);
+        Map<String, ReserveOutcome> outcomes = perCollection(reservations, optionalMongoTemplate,
+                (collectionName, values) -> reserve(mongoTemplate, owner, values, collectionName, reservedUntil));
+
+        Map<String, Set<String>> collided = new LinkedHashMap<>();
+        Map<String, List<String>> reserved = new LinkedHashMap<>();
+        RuntimeException failure = null;
+        for (Map.Entry<String, ReserveOutcome> entry : outcomes.entrySet()) {
+            ReserveOutcome outcome = entry.getValue();
+            if (!outcome.collided().isEmpty()) {
+                collided.put(entry.getKey(), outcome.collided());
+            }
+            if (!outcome.reserved().isEmpty()) {
+                reserved.put(entry.getKey(), outcome.reserved());
+            }
+            if (failure == null) {
+                failure = outcome.failure();
+            }
+        }
+
+        if (failure != null || !collided.isEmpty()) {
+            // all or nothing
+            releaseValues(tenant, optionalMongoTemplate, owner, reserved);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+
+        log.info("Reserved values in collections: {} until {} - Collisions in: {}",
+                reservations.keySet(), reservedUntil, collided.keySet());
+        return collided;
+    }
+
+    @Override
+    public void confirmValues(String tenant,
+                              MongoTemplate optionalMongoTemplate,
+                              String owner,
+                              Map<String, ? extends Collection<String>> valuesByCollection) {
+        Map<String, List<String>> confirmations = candidates(valuesByCollection);
+        if (confirmations.isEmpty()) {
+            return;
+        }
+
+        MongoTemplate mongoTemplate = getMongoTemplate(tenant, optionalMongoTemplate);
+        Map<String, Set<String>> heldByOthers = new LinkedHashMap<>();
+        perCollection(confirmations, optionalMongoTemplate,
+                (collectionName, values) -> confirm(mongoTemplate, owner, values, collectionName)).forEach((collectionName, lost) -> {
+            if (!lost.isEmpty()) {
+                heldByOthers.put(collectionName, lost);
+            }
+        });
+
+        if (!heldByOthers.isEmpty()) {
+            log.warn("Could not confirm values held by another owner — owner: {}, values: {}", owner, heldByOthers);
+            throw new DuplicateKeyException("Values held by another owner: " + heldByOthers);
+        }
+        log.info("Confirmed reserved values in collections: {}", confirmations.keySet());
+    }
+
+    @Override
+    public void releaseValues(String tenant,
+                              MongoTemplate optionalMongoTemplate,
+                              String owner,
+                              Map<String, ? extends Collection<String>> valuesByCollection) {
+        Map<String, List<String>> releases = candidates(valuesByCollection);
+        if (releases.isEmpty()) {
+            return;
+        }
+
+        MongoTemplate mongoTemplate = getMongoTemplate(tenant, optionalMongoTemplate);
+        perCollection(releases, optionalMongoTemplate, (collectionName, values) -> mongoTemplate.remove(
+                Query.query(Criteria.where(MongoDBConstants.FIELD_ID).in(values)
+                        .and(MongoDBConstants.FIELD_RESERVED_BY).is(owner)),
+                collectionName
+        ).getDeletedCount());
+        log.info("Released reserved values in collections: {}", releases.keySet());
+    }
+
+    /**
+     * Upsert on (_id, owner): the owner's entry loses its expiry, a lapsed one is recreated, and an entry held
+     * by anyone else makes the upsert's insert fail on the unique _id.
+     *
+     * @return values held by someone else
+     */
+    private Set<String> confirm(MongoTemplate mongoTemplate, String owner, List<String> values, String collectionName) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, IndexEntry.class, collectionName);
+        for (String value : values) {
+            bulk.upsert(Query.query(Criteria.where(MongoDBConstants.FIELD_ID).is(value)
+                            .and(MongoDBConstants.FIELD_RESERVED_BY).is(owner)),
+                    new Update().unset(MongoDBConstants.FIELD_RESERVED_UNTIL));
+        }
+        try {
+            bulk.execute();
+            return Set.of();
+        } catch (BulkOperationException ex) {
+            Set<String> lost = new LinkedHashSet<>();
+            for (BulkWriteError error : ex.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY_ERROR_CODE) {
+                    throw ex;
+                }
+                lost.add(values.get(error.getIndex()));
+            }
+            return lost;
+        }
+    }
+
+    /**
+     * Unordered insert of reservations; duplicates that turn out to be expired reservations are taken over.
+     * Never throws: a non-duplicate failure is returned so the caller can release the other collections first.
+     */
+    private ReserveOutcome reserve(MongoTemplate mongoTemplate, String owner, List<String> values,
+                                   String collectionName, Instant reservedUntil) {
+        List<IndexEntry> entries = values.stream().map(value -> new IndexEntry(value, reservedUntil, owner)).toList();
+        Set<String> duplicates = new LinkedHashSet<>();
+        RuntimeException failure = null;
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, IndexEntry.class, collectionName)
+                    .insert(entries)
+                    .execute();
+        } catch (BulkOperationException ex) {
+            for (BulkWriteError error : ex.getErrors()) {
+                duplicates.add(values.get(error.getIndex()));
+                if (error.getCode() != DUPLICATE_KEY_ERROR_CODE && failure == null) {
+                    failure = ex;
+                }
+            }
+        } catch (RuntimeException ex) {
+            return new ReserveOutcome(List.of(), Set.of(), ex);
+        }
+
+        Set<String> collided = new LinkedHashSet<>();
+        for (String value : duplicates) {
+            if (failure != null || !takeOverExpired(mongoTemplate, owner, value, collectionName, reservedUntil)) {
+                collided.add(value);
+            }
+        }
+
+        List<String> reserved = values.stream().filter(value -> !collided.contains(value)).toList();
+        return new ReserveOutcome(reserved, failure == null ? collided : Set.of(), failure);
+    }
+
+    /**
+     * The new owner replaces the old one, so the old owner can neither confirm nor release the value any more.
+     */
+    private boolean takeOverExpired(MongoTemplate mongoTemplate, String owner, String value, String collectionName,
+                                    Instant reservedUntil) {
+        Query expired = Query.query(Criteria.where(MongoDBConstants.FIELD_ID).is(value)
+                .and(MongoDBConstants.FIELD_RESERVED_UNTIL).lt(Instant.now()));
+        Update takeOver = new Update()
+                .set(MongoDBConstants.FIELD_RESERVED_UNTIL, reservedUntil)
+                .set(MongoDBConstants.FIELD_RESERVED_BY, owner);
+        return mongoTemplate.updateFirst(expired, takeOver, collectionName).getModifiedCount() > 0;
+    }
+
+    private Set<String> findExistingIds(MongoTemplate mongoTemplate, List<String> values, String collectionName) {
+        Query query = new Query(Criteria.where(MongoDBConstants.FIELD_ID).in(values));
+        query.fields().include(MongoDBConstants.FIELD_ID);
+
+        Set<String> found = new HashSet<>();
+        for (Document document : mongoTemplate.find(query, Document.class, collectionName)) {
+            found.add(String.valueOf(document.get(MongoDBConstants.FIELD_ID)));
+        }
+        return found;
+    }
+
+    /**
+     * Non-blank, distinct values per collection; collections left empty are dropped.
+     */
+    private static Map<String, List<String>> candidates(Map<String, ? extends Collection<String>> valuesByCollection) {
+        Map<String, List<String>> candidates = new LinkedHashMap<>();
+        valuesByCollection.forEach((collectionName, values) -> {
+            List<String> kept = values == null ? List.of() : values.stream()
+                    .filter(value -> value != null && !value.isBlank())
+                    .distinct()
+                    .toList();
+            if (!kept.isEmpty()) {
+                candidates.put(collectionName, kept);
+            }
+        });
+        return candidates;
+    }
+
+    /**
+     * Run one operation per collection: every collection but the first goes to the executor,
+     * the first runs on the calling thread meanwhile. A caller-supplied template may be bound to a client session,
+     * which must not be shared across threads: with one, the collections run one after another.
+     */
+    private <R> Map<String, R> perCollection(Map<String, List<String>> valuesByCollection,
+                                             MongoTemplate optionalMongoTemplate,
+                                             BiFunction<String, List<String>, R> operation) {
+        boolean parallel = optionalMongoTemplate == null;
+        Map<String, CompletableFuture<R>> pending = new LinkedHashMap<>();
+        valuesByCollection.forEach((collectionName, values) -> pending.put(collectionName, !parallel || pending.isEmpty()
+                ? null
+                : CompletableFuture.supplyAsync(() -> operation.apply(collectionName, values), executor)));
+
+        Map<String, R> results = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<R>> entry : pending.entrySet()) {
+            String collectionName = entry.getKey();
+            results.put(collectionName, entry.getValue() == null
+                    ? operation.apply(collectionName, valuesByCollection.get(collectionName))
+                    : join(entry.getValue()));
+        }
+        return results;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * TTL index on reservedUntil for every index collection (abandoned reservations are removed by MongoDB).
+     */
+    @Override
+    public List<IndexContribution> tenantIndexes() {
+        return Stream.of(MongoDBConstants.INDEX_UIDS, MongoDBConstants.INDEX_EMAILS, MongoDBConstants.INDEX_MOBILES)
+                .map(collectionName -> new IndexContribution(collectionName, List.of(new Index()
+                        .on(MongoDBConstants.FIELD_RESERVED_UNTIL, Sort.Direction.ASC)
+                        .expire(Duration.ZERO)
+                        .named(RESERVATION_TTL_INDEX))))
+                .toList();
+    }
+
+    /**
+     * @param reserved values this call reserved (to release if the whole reservation is abandoned)
+     * @param collided values already taken or reserved by someone else
+     * @param failure  non-duplicate write error, null when the insert went through
+     */
+    private record ReserveOutcome(List<String> reserved, Set<String> collided, RuntimeException failure) {
+    }
+
     public void deleteIndexEntry(String tenant, MongoTemplate optionalMongoTemplate, String value, String collectionName) {
         MongoTemplate mongoTemplate = getMongoTemplate(tenant, optionalMongoTemplate);
         IndexEntry deleted = mongoTemplate.findAndRemove(
@@ -76,10 +400,17 @@ public class IndexingServiceImpl implements IndexingService {
 
     @Override
     public boolean existsDocumentById(String tenant, MongoTemplate optionalMongoTemplate, String id, String collectionName) {
+        if (isCachedExisting(tenant, collectionName, id)) {
+            log.info("Checked existence of document with id={} in collection='{}' → Exists: true (cached)", id, collectionName);
+            return true;
+        }
         MongoTemplate mongoTemplate = getMongoTemplate(tenant, optionalMongoTemplate);
 
-        Object result = mongoTemplate.findById(id, Object.class, collectionName);
-        boolean exists = (result != null);
+        // _id-only find with limit 1: answered from the _id index, no document decoding
+        boolean exists = mongoTemplate.exists(Query.query(Criteria.where(MongoDBConstants.FIELD_ID).is(id)), collectionName);
+        if (exists) {
+            cacheExisting(tenant, collectionName, List.of(id));
+        }
 
         log.info("Checked existence of document with id={} in collection='{}' → Exists: {}",
                 id, collectionName, exists);
@@ -94,23 +425,66 @@ public class IndexingServiceImpl implements IndexingService {
             List<String> ids,
             String collectionName
     ) {
-        MongoTemplate mongoTemplate = getMongoTemplate(tenant, optionalMongoTemplate);
-
         if (ids == null || ids.isEmpty()) {
             log.warn("existsAllDocumentsByIds called with empty/null id list for collection='{}'", collectionName);
             return true;
         }
+        return findMissingIds(tenant, optionalMongoTemplate, ids, collectionName).isEmpty();
+    }
 
-        Query query = new Query(Criteria.where(MongoDBConstants.FIELD_ID).in(ids));
-        long foundCount = mongoTemplate.count(query, collectionName);
+    @Override
+    public Set<String> findMissingIds(String tenant,
+                                      MongoTemplate optionalMongoTemplate,
+                                      Collection<String> ids,
+                                      String collectionName) {
+        if (ids == null || ids.isEmpty()) {
+            return Set.of();
+        }
 
-        boolean allExist = (foundCount == ids.size());
+        Set<String> unknown = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (!isCachedExisting(tenant, collectionName, id)) {
+                unknown.add(id);
+            }
+        }
+        if (unknown.isEmpty()) {
+            log.info("Checked existence of {} document ids in collection='{}' → Missing: [] (cached)", ids.size(), collectionName);
+            return Set.of();
+        }
+
+        MongoTemplate mongoTemplate = getMongoTemplate(tenant, optionalMongoTemplate);
 
-        log.info("Checked existence of {} document ids in collection='{}' → Found: {}, AllExist: {}",
-                ids.size(), collectionName, foundCount, allExist);
+        // covered query: the _id index holds everything the projection asks for
+        Query query = new Query(Criteria.where(MongoDBConstants.FIELD_ID).in(unknown));
+        query.fields().include(MongoDBConstants.FIELD_ID);
+        List<String> found = new ArrayList<>(unknown.size());
+        for (Document document : mongoTemplate.find(query, Document.class, collectionName)) {
+            found.add(String.valueOf(document.get(MongoDBConstants.FIELD_ID)));
+        }
+        cacheExisting(tenant, collectionName, found);
 
-        return allExist;
+        found.forEach(unknown::remove);
+        log.info("Checked existence of {} document ids in collection='{}' → Queried: {}, Missing: {}",
+                ids.size(), collectionName, unknown.size() + found.size(), unknown);
+        return unknown;
     }
 
+    /* ============================================================
+       Existence cache (reference collections only, positive answers only)
+       ============================================================ */
 
+    private boolean isCachedExisting(String tenant, String collectionName, String id) {
+        return existenceCachedCollections.contains(collectionName)
+                && existenceCache.getIfPresent(existenceKey(tenant, collectionName, id)) != null;
+    }
+
+    private void cacheExisting(String tenant, String collectionName, Collection<String> ids) {
+        if (existenceCachedCollections.contains(collectionName)) {
+            ids.forEach(id -> existenceCache.put(existenceKey(tenant, collectionName, id), Boolean.TRUE));
+        }
+    }
+
+    private static String existenceKey(String tenant, String collectionName, String id) {
+        return tenant + '\u0000' + collectionName + '\u0000' + id;
+    }
 }
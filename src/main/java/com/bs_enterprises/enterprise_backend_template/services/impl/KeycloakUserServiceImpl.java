@@ -1,19 +1,27 @@
 package com.bs_enterprises.enterprise_backend_template.services.impl;
 
+import com.bs_enterprises.enterprise_backend_template.config.KeycloakProperties;
+import com.bs_enterprises.enterprise_backend_template.models.users.KeycloakBulkCreateResult;
 import com.bs_enterprises.enterprise_backend_template.models.users.KeycloakUserModel;
 import com.bs_enterprises.enterprise_backend_template.services.KeycloakUserService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.ws.rs.core.Response;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.resource.UserResource;
 import org.keycloak.representations.idm.CredentialRepresentation;
+import org.keycloak.representations.idm.PartialImportRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -22,18 +30,56 @@ import java.util.stream.Collectors;
  * as an attribute named "studioIds" (list).
  * <p>
  * Note: realmName is considered the tenant identifier (different tenants are different realms).
+ * <p>
+ * getUser can read through a cache per realm and id (properties.keycloak.user-cache, off by default) for callers
+ * that look users up repeatedly; updateUser / deleteUser / setPassword invalidate the entry. The read that feeds
+ * updateUser's PUT always goes to Keycloak, so a stale entry is never written back. Metrics: cache
+ * "keycloak.users" (cache.gets by result = hit ratio) and "keycloak.admin.calls" by operation.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class KeycloakUserServiceImpl implements KeycloakUserService {
 
+    private static final String USER_CACHE_NAME = "keycloak.users";
+    private static final String METRIC_ADMIN_CALLS = "keycloak.admin.calls";
+
     private final Keycloak keycloak; // injected master/admin Keycloak client
 
 
     // attribute name in Keycloak used to store list of studio ids
     private final ObjectMapper objectMapper;
 
+    private final KeycloakProperties keycloakProperties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> adminCalls = new ConcurrentHashMap<>();
+
+    /**
+     * realm + '\u0000' + Keycloak id → representation; null when disabled.
+     */
+    private final Cache<String, UserRepresentation> userCache;
+
+    public KeycloakUserServiceImpl(Keycloak keycloak,
+                                   ObjectMapper objectMapper,
+                                   KeycloakProperties keycloakProperties,
+                                   MeterRegistry meterRegistry) {
+        this.keycloak = keycloak;
+        this.objectMapper = objectMapper;
+        this.keycloakProperties = keycloakProperties;
+        this.meterRegistry = meterRegistry;
+
+        KeycloakProperties.UserCache cacheProperties = keycloakProperties.getUserCache();
+        if (cacheProperties.isEnabled()) {
+            this.userCache = Caffeine.newBuilder()
+                    .maximumSize(cacheProperties.getMaximumSize())
+                    .expireAfterWrite(cacheProperties.getTtl())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, this.userCache, USER_CACHE_NAME);
+        } else {
+            this.userCache = null;
+        }
+    }
+
     // ----------------------------
     // Helper: convert model -> Keycloak UserRepresentation
     // studioId removed — we only include studioIds if present on the model.
@@ -84,6 +130,7 @@ public class KeycloakUserServiceImpl implements KeycloakUserService {
 
         UserRepresentation user = toRepresentation(model);
 
+        adminCall("create");
         try (Response response = keycloak.realm(realmName).users().create(user)) {
             int status = response.getStatus();
 
@@ -153,6 +200,89 @@ public class KeycloakUserServiceImpl implements KeycloakUserService {
         }
     }
 
+    @Override
+    public KeycloakBulkCreateResult createUsers(String realmName, List<KeycloakUserModel> models) {
+        Objects.requireNonNull(realmName, "realmName required");
+
+        Map<String, String> created = new LinkedHashMap<>();
+        Map<String, String> failed = new LinkedHashMap<>();
+        if (models == null || models.isEmpty()) {
+            return new KeycloakBulkCreateResult(created, failed);
+        }
+
+        int chunkSize = Math.max(1, keycloakProperties.getBulkImportChunkSize());
+        for (int from = 0; from < models.size(); from += chunkSize) {
+            partialImportChunk(realmName, models.subList(from, Math.min(models.size(), from + chunkSize)), created, failed);
+        }
+
+        log.info("Bulk created users in realm '{}': requested={}, created={}, failed={}",
+                realmName, models.size(), created.size(), failed.size());
+        return new KeycloakBulkCreateResult(created, failed);
+    }
+
+    /**
+     * One partial-import call (ifResourceExists=SKIP, so one existing user does not reject the others).
+     * Results carry the username (as stored: lower-case) and the Keycloak id of every user.
+     */
+    private void partialImportChunk(String realmName,
+                                    List<KeycloakUserModel> chunk,
+                                    Map<String, String> created,
+                                    Map<String, String> failed) {
+        // username → local id, for the users sent
+        Map<String, String> localIds = new LinkedHashMap<>();
+        List<UserRepresentation> users = new ArrayList<>(chunk.size());
+        for (KeycloakUserModel model : chunk) {
+            String username = model.getUsername() == null ? null : model.getUsername().toLowerCase(Locale.ROOT);
+            if (username == null || localIds.putIfAbsent(username, model.getId()) != null) {
+                failed.put(model.getId(), "Missing or repeated username in bulk create: " + model.getUsername());
+                continue;
+            }
+            UserRepresentation user = toRepresentation(model);
+            user.setId(null); // generated by Keycloak, like the single-user create endpoint does
+            users.add(user);
+        }
+        if (users.isEmpty()) {
+            return;
+        }
+
+        PartialImportRepresentation payload = new PartialImportRepresentation();
+        payload.setIfResourceExists(PartialImportRepresentation.Policy.SKIP.name());
+        payload.setUsers(users);
+
+        adminCall("partial_import");
+        try (Response response = keycloak.realm(realmName).partialImport(payload)) {
+            int status = response.getStatus();
+            String body = response.readEntity(String.class);
+            if (status != 200) {
+                String message = extractErrorMessage(body);
+                String detail = "Partial import failed: HTTP " + status + " - " + (message != null ? message : body);
+                log.error("Bulk create of {} users in realm '{}' rejected: {}", users.size(), realmName, detail);
+                localIds.values().forEach(localId -> failed.put(localId, detail));
+                return;
+            }
+
+            for (JsonNode result : objectMapper.readTree(body).path("results")) {
+                if (!"USER".equals(result.path("resourceType").asText())) {
+                    continue;
+                }
+                String username = result.path("resourceName").asText();
+                String localId = localIds.remove(username.toLowerCase(Locale.ROOT));
+                if (localId == null) {
+                    continue;
+                }
+                if ("ADDED".equals(result.path("action").asText())) {
+                    created.put(localId, result.path("id").asText());
+                } else {
+                    failed.put(localId, "Conflict creating user (username=" + username + "): username or email exists");
+                }
+            }
+            localIds.values().forEach(localId -> failed.put(localId, "User missing from partial import results"));
+        } catch (Exception ex) {
+            log.error("Bulk create of {} users in realm '{}' failed: {}", users.size(), realmName, ex.getMessage(), ex);
+            localIds.values().forEach(localId -> failed.put(localId, "Partial import failed: " + ex.getMessage()));
+        }
+    }
+
     private String fallbackFetchCreatedId(String realmName, String username) {
         List<UserRepresentation> found = findByUsername(realmName, username, 0, 5);
 
@@ -203,8 +333,9 @@ public class KeycloakUserServiceImpl implements KeycloakUserService {
         Objects.requireNonNull(keycloakUserId, "keycloakUserId required");
 
         try {
-            UserRepresentation user = keycloak.realm(realmName).users().get(keycloakUserId).toRepresentation();
-            return user;
+            // a copy: callers may modify what they get, the cached instance must stay as Keycloak returned it
+            UserRepresentation user = cachedRepresentation(realmName, keycloakUserId);
+            return userCache == null ? user : objectMapper.convertValue(user, UserRepresentation.class);
         } catch (Exception e) {
             log.error("Failed to fetch Keycloak user (realm={}, id={}): {}", realmName, keycloakUserId, e.getMessage(), e);
             throw new IllegalStateException("User not found: " + keycloakUserId, e);
@@ -223,10 +354,10 @@ public class KeycloakUserServiceImpl implements KeycloakUserService {
         try {
             UserResource userResource = keycloak.realm(realmName).users().get(keycloakUserId);
 
-            // 1) Get existing Keycloak user to read current state/attributes
+            // 1) Get existing Keycloak user to read current state/attributes (never cached: it is written back)
             UserRepresentation existing;
             try {
-                existing = userResource.toRepresentation();
+                existing = fetchRepresentation(realmName, keycloakUserId);
             } catch (Exception e) {
                 log.error("Failed fetching Keycloak user for update: {}", e.getMessage(), e);
                 throw new IllegalStateException("Unable to fetch existing Keycloak user: " + keycloakUserId, e);
@@ -279,6 +410,7 @@ public class KeycloakUserServiceImpl implements KeycloakUserService {
             // 5) Execute Update
             try {
                 // We send 'updateRep' (the clean object), NOT 'existing'
+                adminCall("update");
                 userResource.update(updateRep);
                 log.info("Updated Keycloak user {} in realm {}", keycloakUserId, realmName);
             } catch (jakarta.ws.rs.BadRequestException bre) {
@@ -295,6 +427,53 @@ public class KeycloakUserServiceImpl implements KeycloakUserService {
         } catch (Exception ex) {
             log.error("Failed to update Keycloak user (realm={}, id={}): {}", realmName, keycloakUserId, ex.getMessage(), ex);
             throw ex;
+        } finally {
+            // also after a failure: the update may have been applied before the error surfaced
+            invalidate(realmName, keycloakUserId);
+        }
+    }
+
+    // ----------------------------
+    // Partial update (no GET: absent fields are left untouched by Keycloak)
+    // ----------------------------
+    @Override
+    public void updateUserFields(String realmName, String keycloakUserId, KeycloakUserModel model, Set<String> fields) {
+        Objects.requireNonNull(realmName, "realmName required");
+        Objects.requireNonNull(keycloakUserId, "keycloakUserId required");
+        Objects.requireNonNull(model, "model required");
+
+        UserRepresentation patch = new UserRepresentation();
+        for (String field : fields) {
+            switch (field) {
+                // "" rather than null: a null field means "unchanged" to Keycloak
+                case "firstName" -> patch.setFirstName(Objects.requireNonNullElse(model.getFirstName(), ""));
+                case "lastName" -> patch.setLastName(Objects.requireNonNullElse(model.getLastName(), ""));
+                case "email" -> patch.setEmail(Objects.requireNonNullElse(model.getEmail(), ""));
+                case "enabled" -> patch.setEnabled(model.isEnabled());
+                case "emailVerified" -> patch.setEmailVerified(model.isEmailVerified());
+                case "username" -> throw new IllegalArgumentException(
+                        "Username cannot be changed in Keycloak. Attempted=" + model.getUsername());
+                default -> throw new IllegalArgumentException("Not a Keycloak user field: " + field);
+            }
+        }
+
+        try {
+            adminCall("update");
+            keycloak.realm(realmName).users().get(keycloakUserId).update(patch);
+            log.info("Updated Keycloak user {} in realm {} (fields={})", keycloakUserId, realmName, fields);
+        } catch (jakarta.ws.rs.BadRequestException bre) {
+            String body = null;
+            try {
+                if (bre.getResponse() != null) body = bre.getResponse().readEntity(String.class);
+            } catch (Exception ignore) {
+            }
+            log.error("Keycloak 400 during partial update. Body={}", body);
+            throw new IllegalStateException("Keycloak rejected update: " + body, bre);
+        } catch (Exception ex) {
+            log.error("Failed to update Keycloak user (realm={}, id={}): {}", realmName, keycloakUserId, ex.getMessage(), ex);
+            throw ex;
+        } finally {
+            invalidate(realmName, keycloakUserId);
         }
     }
 
@@ -308,11 +487,14 @@ public class KeycloakUserServiceImpl implements KeycloakUserService {
 
         try {
             // Attempt delete; Keycloak will respond accordingly if user not found
+            adminCall("delete");
             keycloak.realm(realmName).users().get(userId).remove();
             log.info("Deleted user (id={}) from realm '{}'", userId, realmName);
         } catch (Exception ex) {
             log.error("Failed to delete Keycloak user (realm={}, id={}): {}", realmName, userId, ex.getMessage(), ex);
             throw new IllegalStateException("Failed to delete Keycloak user: " + userId, ex);
+        } finally {
+            invalidate(realmName, userId);
         }
     }
 
@@ -323,6 +505,7 @@ public class KeycloakUserServiceImpl implements KeycloakUserService {
     public List<UserRepresentation> searchUsers(String realmName, String search, int first, int max) {
         Objects.requireNonNull(realmName, "realmName required");
 
+        adminCall("search");
         List<UserRepresentation> results = keycloak.realm(realmName).users().search(search == null ? "" : search, first, max);
         if (results == null || results.isEmpty()) return Collections.emptyList();
         return results;
@@ -331,6 +514,7 @@ public class KeycloakUserServiceImpl implements KeycloakUserService {
     @Override
     public List<UserRepresentation> findByUsername(String realmName, String username, int first, int max) {
         Objects.requireNonNull(realmName, "realmName required");
+        adminCall("search");
         List<UserRepresentation> results = keycloak.realm(realmName).users().search(username, first, max);
         if (results == null || results.isEmpty()) return Collections.emptyList();
         return results;
@@ -353,11 +537,49 @@ public class KeycloakUserServiceImpl implements KeycloakUserService {
             credential.setTemporary(temporary);
 
             // Reset password using UserResource
+            adminCall("reset_password");
             keycloak.realm(realmName).users().get(userId).resetPassword(credential);
             log.info("Password set for user (id={}) in realm '{}'", userId, realmName);
         } catch (Exception ex) {
             log.error("Failed to set password for user (realm={}, id={}): {}", realmName, userId, ex.getMessage(), ex);
             throw new IllegalStateException("Failed to set password for Keycloak user: " + userId, ex);
+        } finally {
+            // temporary passwords add a required action to the user
+            invalidate(realmName, userId);
+        }
+    }
+
+    // ----------------------------
+    // User representation cache + admin call metrics
+    // ----------------------------
+    private UserRepresentation cachedRepresentation(String realmName, String keycloakUserId) {
+        if (userCache == null) {
+            return fetchRepresentation(realmName, keycloakUserId);
+        }
+        // failures are not cached: the loader's exception reaches the caller
+        return userCache.get(cacheKey(realmName, keycloakUserId), key -> fetchRepresentation(realmName, keycloakUserId));
+    }
+
+    private UserRepresentation fetchRepresentation(String realmName, String keycloakUserId) {
+        adminCall("get");
+        return keycloak.realm(realmName).users().get(keycloakUserId).toRepresentation();
+    }
+
+    private void invalidate(String realmName, String keycloakUserId) {
+        if (userCache != null) {
+            userCache.invalidate(cacheKey(realmName, keycloakUserId));
         }
     }
+
+    private void adminCall(String operation) {
+        adminCalls.computeIfAbsent(operation, op -> Counter.builder(METRIC_ADMIN_CALLS)
+                        .description("Keycloak admin API calls made by this node")
+                        .tag("operation", op)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    private static String cacheKey(String realmName, String keycloakUserId) {
+        return realmName + '\u0000' + keycloakUserId;
+    }
 }
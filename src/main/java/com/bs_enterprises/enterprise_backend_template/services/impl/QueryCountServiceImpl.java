@@ -0,0 +1,135 @@
+package com.bs_enterprises.enterprise_backend_template.services.impl;
+
+import com.bs_enterprises.enterprise_backend_template.config.ConcurrencyConfig;
+import com.bs_enterprises.enterprise_backend_template.config.MongoTenantProperties;
+import com.bs_enterprises.enterprise_backend_template.models.paginations.CountMode;
+import com.bs_enterprises.enterprise_backend_template.services.QueryCountService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecConfigurationException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+@Slf4j
+@Service
+public class QueryCountServiceImpl implements QueryCountService {
+
+    private static final String COUNT_CACHE_NAME = "mongo.search.counts";
+
+    private final ExecutorService executor;
+    private final long countCap;
+    private final Cache<String, Long> countCache;
+
+    public QueryCountServiceImpl(@Qualifier(ConcurrencyConfig.VIRTUAL_THREAD_EXECUTOR) ExecutorService executor,
+                                 MongoTenantProperties mongoTenantProperties,
+                                 MeterRegistry meterRegistry) {
+        MongoTenantProperties.Search search = mongoTenantProperties.getSearch();
+        this.executor = executor;
+        this.countCap = search.getCountCap();
+        this.countCache = Caffeine.newBuilder()
+                .maximumSize(search.getCountCacheMaximumSize())
+                .expireAfterWrite(search.getCountCacheTtl())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, this.countCache, COUNT_CACHE_NAME);
+    }
+
+    @Override
+    public long count(MongoTemplate mongoTemplate,
+                      String tenant,
+                      Query query,
+                      Class<?> entityClass,
+                      String collectionName,
+                      CountMode countMode) {
+        return switch (countMode == null ? CountMode.EXACT : countMode) {
+            case EXACT -> mongoTemplate.count(query, entityClass, collectionName);
+            case NONE -> UNKNOWN_TOTAL;
+            case ESTIMATED -> estimate(mongoTemplate, query, entityClass, collectionName);
+            case CACHED -> cachedCount(mongoTemplate, tenant, query, entityClass, collectionName);
+        };
+    }
+
+    @Override
+    public CompletableFuture<Long> countAsync(MongoTemplate mongoTemplate,
+                                              String tenant,
+                                              Query query,
+                                              Class<?> entityClass,
+                                              String collectionName,
+                                              CountMode countMode) {
+        if (countMode == CountMode.NONE) {
+            return CompletableFuture.completedFuture(UNKNOWN_TOTAL);
+        }
+
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                result.complete(count(mongoTemplate, tenant, query, entityClass, collectionName, countMode));
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+
+        // cancelling the returned future interrupts the virtual thread blocked in the driver
+        result.whenComplete((total, ex) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Unfiltered → collection metadata count; filtered → count that stops at countCap (lower bound).
+     */
+    private long estimate(MongoTemplate mongoTemplate, Query query, Class<?> entityClass, String collectionName) {
+        if (query.getQueryObject().isEmpty()) {
+            return mongoTemplate.estimatedCount(collectionName);
+        }
+        Query capped = Query.of(query).skip(0).limit((int) Math.min(countCap, Integer.MAX_VALUE));
+        return mongoTemplate.count(capped, entityClass, collectionName);
+    }
+
+    private long cachedCount(MongoTemplate mongoTemplate,
+                             String tenant,
+                             Query query,
+                             Class<?> entityClass,
+                             String collectionName) {
+        String key;
+        try {
+            key = tenant + '|' + collectionName + '|' + ((Document) normalize(query.getQueryObject())).toJson();
+        } catch (CodecConfigurationException ex) {
+            log.debug("Count cache bypassed for collection='{}': query not serializable ({})", collectionName, ex.getMessage());
+            return mongoTemplate.count(query, entityClass, collectionName);
+        }
+        return countCache.get(key, k -> mongoTemplate.count(query, entityClass, collectionName));
+    }
+
+    /**
+     * Sort document keys recursively so equivalent filters built in a different order share a cache entry.
+     */
+    private static Object normalize(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            map.forEach((k, v) -> sorted.put(String.valueOf(k), normalize(v)));
+            return new Document(sorted);
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(QueryCountServiceImpl::normalize).toList();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,176 @@
+package com.bs_enterprises.enterprise_backend_template.services.impl;
+
+import com.bs_enterprises.enterprise_backend_template.config.MongoTenantProperties;
+import com.bs_enterprises.enterprise_backend_template.models.paginations.CountMode;
+import com.bs_enterprises.enterprise_backend_template.services.QueryCountService;
+import com.bs_enterprises.enterprise_backend_template.services.SearchExecutionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+public class SearchExecutionServiceImpl implements SearchExecutionService {
+
+    private static final String SEARCH_TIMER = "mongo.repository.search";
+
+    private static final String PHASE_COUNT = "count";
+    private static final String PHASE_FIND = "find";
+    private static final String PHASE_TOTAL = "total";
+
+    private final QueryCountService queryCountService;
+    private final MeterRegistry meterRegistry;
+    private final MongoTenantProperties.ExecutionMode executionMode;
+
+    public SearchExecutionServiceImpl(QueryCountService queryCountService,
+                                      MeterRegistry meterRegistry,
+                                      MongoTenantProperties mongoTenantProperties) {
+        this.queryCountService = queryCountService;
+        this.meterRegistry = meterRegistry;
+        this.executionMode = mongoTenantProperties.getSearch().getExecutionMode();
+    }
+
+    @Override
+    public <T> Page<T> execute(MongoTemplate mongoTemplate,
+                               String tenant,
+                               Query query,
+                               Pageable pageable,
+                               Class<T> entityClass,
+                               String collectionName,
+                               CountMode countMode) {
+        return execute(mongoTemplate, tenant, query, pageable, entityClass, entityClass, collectionName, countMode);
+    }
+
+    @Override
+    public <S, R> Page<R> execute(MongoTemplate mongoTemplate,
+                                  String tenant,
+                                  Query query,
+                                  Pageable pageable,
+                                  Class<S> entityClass,
+                                  Class<R> resultType,
+                                  String collectionName,
+                                  CountMode countMode) {
+        CountMode mode = countMode == null ? CountMode.EXACT : countMode;
+        long started = System.nanoTime();
+
+        Page<R> page;
+        if (mode == CountMode.NONE) {
+            page = executeWithoutCount(mongoTemplate, query, pageable, entityClass, resultType, collectionName);
+        } else if (executionMode == MongoTenantProperties.ExecutionMode.PARALLEL) {
+            page = executeParallel(mongoTemplate, tenant, query, pageable, entityClass, resultType, collectionName, mode);
+        } else {
+            page = executeSequential(mongoTemplate, tenant, query, pageable, entityClass, resultType, collectionName, mode);
+        }
+
+        record(PHASE_TOTAL, collectionName, mode, System.nanoTime() - started);
+        return page;
+    }
+
+    /**
+     * Count is sent on a virtual thread while the page is fetched here; if the fetch fails the count is cancelled.
+     */
+    private <S, R> Page<R> executeParallel(MongoTemplate mongoTemplate,
+                                        String tenant,
+                                        Query query,
+                                        Pageable pageable,
+                                        Class<S> entityClass,
+                                        Class<R> resultType,
+                                        String collectionName,
+                                        CountMode mode) {
+        long countStarted = System.nanoTime();
+        CompletableFuture<Long> totalFuture = queryCountService.countAsync(
+                mongoTemplate, tenant, Query.of(query), entityClass, collectionName, mode);
+        totalFuture.whenComplete((total, ex) -> {
+            if (ex == null) {
+                record(PHASE_COUNT, collectionName, mode, System.nanoTime() - countStarted);
+            }
+        });
+
+        List<R> items;
+        try {
+            items = find(mongoTemplate, Query.of(query).with(pageable), entityClass, resultType, collectionName, mode);
+        } catch (RuntimeException ex) {
+            boolean cancelled = totalFuture.cancel(true);
+            log.debug("search find failed on collection='{}', count cancelled={}", collectionName, cancelled);
+            throw ex;
+        }
+
+        return new PageImpl<>(items, pageable, totalFuture.join());
+    }
+
+    private <S, R> Page<R> executeSequential(MongoTemplate mongoTemplate,
+                                          String tenant,
+                                          Query query,
+                                          Pageable pageable,
+                                          Class<S> entityClass,
+                                          Class<R> resultType,
+                                          String collectionName,
+                                          CountMode mode) {
+        long countStarted = System.nanoTime();
+        long total = queryCountService.count(mongoTemplate, tenant, Query.of(query), entityClass, collectionName, mode);
+        record(PHASE_COUNT, collectionName, mode, System.nanoTime() - countStarted);
+
+        List<R> items = find(mongoTemplate, Query.of(query).with(pageable), entityClass, resultType, collectionName, mode);
+        return new PageImpl<>(items, pageable, total);
+    }
+
+    /**
+     * No count: fetch one extra document to know whether a next page exists.
+     * The total handed to PageImpl is a lower bound, reported as unknown by PageMapper.
+     */
+    private <S, R> Page<R> executeWithoutCount(MongoTemplate mongoTemplate,
+                                            Query query,
+                                            Pageable pageable,
+                                            Class<S> entityClass,
+                                            Class<R> resultType,
+                                            String collectionName) {
+        int size = pageable.getPageSize();
+        Query pageQuery = Query.of(query).with(pageable).limit(size + 1);
+
+        List<R> items = find(mongoTemplate, pageQuery, entityClass, resultType, collectionName, CountMode.NONE);
+
+        boolean hasMore = items.size() > size;
+        if (hasMore) {
+            items = items.subList(0, size);
+        }
+        long total = pageable.getOffset() + items.size() + (hasMore ? 1 : 0);
+        return new PageImpl<>(items, pageable, total);
+    }
+
+    private <S, R> List<R> find(MongoTemplate mongoTemplate,
+                                Query pageQuery,
+                                Class<S> entityClass,
+                                Class<R> resultType,
+                                String collectionName,
+                                CountMode mode) {
+        long started = System.nanoTime();
+        List<R> items = mongoTemplate.query(entityClass)
+                .inCollection(collectionName)
+                .as(resultType)
+                .matching(pageQuery)
+                .all();
+        record(PHASE_FIND, collectionName, mode, System.nanoTime() - started);
+        return items;
+    }
+
+    private void record(String phase, String collectionName, CountMode mode, long nanos) {
+        Timer.builder(SEARCH_TIMER)
+                .description("Repository search latency per phase")
+                .tag("phase", phase)
+                .tag("collection", collectionName)
+                .tag("countMode", mode.name())
+                .tag("execution", executionMode.name())
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,394 @@
+package com.bs_enterprises.enterprise_backend_template.services.impl;
+
+import com.bs_enterprises.enterprise_backend_template.config.ConcurrencyConfig;
+import com.bs_enterprises.enterprise_backend_template.config.MongoTenantProperties;
+import com.bs_enterprises.enterprise_backend_template.models.diagnostics.SlowQueryPlan;
+import com.bs_enterprises.enterprise_backend_template.services.SlowQueryService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.client.MongoClient;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MongoDB command listener (registered on the shared MongoClient by MongoMonitoringConfig), so every
+ * repository, indexing and search call is covered without touching them.
+ * <p>
+ * Each command on a collection is timed into "mongo.tenant.commands" (tenant = database, collection, command,
+ * status). Commands at or above the threshold are logged; explainable ones are re-run once with
+ * explain(executionStats) on a virtual thread, and the plan is logged and kept for the slowqueries endpoint.
+ * Filter values never leave this class: logs and plans only carry the shape ({"email": "?"}).
+ */
+@Slf4j
+@Service
+public class SlowQueryServiceImpl implements SlowQueryService, CommandListener {
+
+    private static final String METRIC_COMMANDS = "mongo.tenant.commands";
+    private static final String METRIC_SLOW = "mongo.tenant.commands.slow";
+    private static final String REDACTED = "?";
+
+    /**
+     * Explainable command → where its filter (or pipeline) lives.
+     */
+    private static final Map<String, String> SHAPE_FIELDS = Map.of(
+            "find", "filter",
+            "aggregate", "pipeline",
+            "count", "query",
+            "distinct", "query",
+            "findAndModify", "query",
+            "update", "updates",
+            "delete", "deletes"
+    );
+
+    /**
+     * Session / transaction / routing fields the driver adds; explain rejects most of them.
+     */
+    private static final Set<String> NOT_EXPLAINABLE_FIELDS = Set.of(
+            "lsid", "txnNumber", "autocommit", "startTransaction", "readConcern", "writeConcern"
+    );
+
+    private final ObjectProvider<MongoClient> mongoClient;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final MongoTenantProperties.SlowQuery properties;
+    private final long thresholdNanos;
+
+    private final Map<Integer, StartedCommand> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Cache<String, Boolean> recentlyExplained;
+    private final Deque<SlowQueryPlan> capturedPlans = new ArrayDeque<>();
+
+    public SlowQueryServiceImpl(ObjectProvider<MongoClient> mongoClient,
+                                @Qualifier(ConcurrencyConfig.VIRTUAL_THREAD_EXECUTOR) ExecutorService executor,
+                                MeterRegistry meterRegistry,
+                                MongoTenantProperties mongoTenantProperties) {
+        this.mongoClient = mongoClient;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.properties = mongoTenantProperties.getSlowQuery();
+        this.thresholdNanos = properties.getThreshold().toNanos();
+        this.recentlyExplained = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(properties.getExplainCooldown())
+                .build();
+    }
+
+    /* ============================================================
+       SlowQueryService
+       ============================================================ */
+
+    @Override
+    public List<SlowQueryPlan> capturedPlans() {
+        synchronized (capturedPlans) {
+            return List.copyOf(capturedPlans);
+        }
+    }
+
+    @Override
+    public List<SlowQueryPlan> capturedPlans(String tenant) {
+        return capturedPlans().stream().filter(plan -> plan.tenant().equals(tenant)).toList();
+    }
+
+    @Override
+    public void clearCapturedPlans() {
+        synchronized (capturedPlans) {
+            capturedPlans.clear();
+        }
+    }
+
+    /* ============================================================
+       CommandListener (driver I/O threads: keep it cheap)
+       ============================================================ */
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        BsonDocument command = event.getCommand();
+        String collection = collectionOf(event.getCommandName(), command);
+        if (collection == null) {
+            return; // handshake, auth, ping, endSessions, ...
+        }
+        // the event's document is backed by the outgoing buffer: copy what is needed for a later explain now
+        BsonDocument explainable = properties.isExplain() && isExplainable(event.getCommandName(), command)
+                ? explainable(command)
+                : null;
+        inFlight.put(event.getRequestId(),
+                new StartedCommand(event.getDatabaseName(), collection, event.getCommandName(), explainable));
+    }
+
+    /**
+     * explain takes a single update / delete statement; bulk writes are timed but never copied.
+     */
+    private static boolean isExplainable(String commandName, BsonDocument command) {
+        if (!SHAPE_FIELDS.containsKey(commandName)) {
+            return false;
+        }
+        if ("update".equals(commandName) || "delete".equals(commandName)) {
+            BsonValue statements = command.get(SHAPE_FIELDS.get(commandName));
+            return statements != null && statements.isArray() && statements.asArray().size() == 1;
+        }
+        return true;
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        completed(event.getRequestId(), event.getElapsedTime(TimeUnit.NANOSECONDS), "success");
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        completed(event.getRequestId(), event.getElapsedTime(TimeUnit.NANOSECONDS), "failure");
+    }
+
+    private void completed(int requestId, long elapsedNanos, String status) {
+        StartedCommand started = inFlight.remove(requestId);
+        if (started == null) {
+            return;
+        }
+        timer(started, status).record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        if (elapsedNanos < thresholdNanos) {
+            return;
+        }
+        Counter.builder(METRIC_SLOW)
+                .tag("tenant", started.database())
+                .tag("collection", started.collection())
+                .tag("command", started.commandName())
+                .register(meterRegistry)
+                .increment();
+
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (started.command() == null || !"success".equals(status)) {
+            log.warn("slow mongo command — tenant='{}', collection='{}', command={}, durationMs={}, status={}",
+                    started.database(), started.collection(), started.commandName(), durationMs, status);
+            return;
+        }
+
+        String shape = shapeOf(started.commandName(), started.command());
+        String explainKey = started.database() + '|' + started.collection() + '|' + started.commandName() + '|' + shape;
+        if (recentlyExplained.asMap().putIfAbsent(explainKey, Boolean.TRUE) != null) {
+            log.warn("slow mongo command — tenant='{}', collection='{}', command={}, durationMs={}, shape={} (recently explained)",
+                    started.database(), started.collection(), started.commandName(), durationMs, shape);
+            return;
+        }
+        executor.submit(() -> explain(started, durationMs, shape));
+    }
+
+    private Timer timer(StartedCommand started, String status) {
+        String key = started.database() + '|' + started.collection() + '|' + started.commandName() + '|' + status;
+        return timers.computeIfAbsent(key, k -> Timer.builder(METRIC_COMMANDS)
+                .description("MongoDB command latency per tenant database, collection and command")
+                .tag("tenant", started.database())
+                .tag("collection", started.collection())
+                .tag("command", started.commandName())
+                .tag("status", status)
+                .publishPercentileHistogram(properties.isPercentileHistogram())
+                .register(meterRegistry));
+    }
+
+    /* ============================================================
+       Explain
+       ============================================================ */
+
+    private void explain(StartedCommand started, long durationMs, String shape) {
+        SlowQueryPlan plan;
+        try {
+            BsonDocument explainCommand = new BsonDocument("explain", started.command())
+                    .append("verbosity", new BsonString("executionStats"));
+            BsonDocument result = mongoClient.getObject()
+                    .getDatabase(started.database())
+                    .runCommand(explainCommand, BsonDocument.class);
+            plan = planOf(started, durationMs, shape, result);
+        } catch (Exception ex) {
+            plan = new SlowQueryPlan(Instant.now(), started.database(), started.collection(), started.commandName(),
+                    durationMs, shape, List.of(), List.of(), false, null, null, null, ex.getMessage());
+        }
+
+        log.warn("slow mongo command — tenant='{}', collection='{}', command={}, durationMs={}, plan={}, indexes={}, "
+                        + "docsExamined={}, keysExamined={}, returned={}, shape={}{}",
+                plan.tenant(), plan.collection(), plan.command(), plan.durationMs(), plan.stages(), plan.indexes(),
+                plan.docsExamined(), plan.keysExamined(), plan.returned(), plan.shape(),
+                plan.error() == null ? "" : ", explainError=" + plan.error());
+
+        synchronized (capturedPlans) {
+            capturedPlans.addFirst(plan);
+            while (capturedPlans.size() > properties.getMaxCapturedPlans()) {
+                capturedPlans.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Copy of the command without the session / routing fields, cloning only the values explain will send.
+     */
+    private static BsonDocument explainable(BsonDocument command) {
+        BsonDocument copy = new BsonDocument();
+        command.forEach((key, value) -> {
+            if (!key.startsWith("$") && !NOT_EXPLAINABLE_FIELDS.contains(key)) {
+                copy.append(key, value.isDocument() || value.isArray() ? clone(value) : value);
+            }
+        });
+        return copy;
+    }
+
+    private static BsonValue clone(BsonValue value) {
+        return value.isDocument() ? value.asDocument().clone() : value.asArray().clone();
+    }
+
+    private static SlowQueryPlan planOf(StartedCommand started, long durationMs, String shape, BsonDocument result) {
+        Set<String> stages = new LinkedHashSet<>();
+        Set<String> indexes = new LinkedHashSet<>();
+        BsonDocument[] executionStats = new BsonDocument[1];
+        collectPlan(result, stages, indexes, executionStats);
+
+        BsonDocument stats = executionStats[0];
+        return new SlowQueryPlan(
+                Instant.now(),
+                started.database(),
+                started.collection(),
+                started.commandName(),
+                durationMs,
+                shape,
+                List.copyOf(stages),
+                List.copyOf(indexes),
+                stages.contains("COLLSCAN"),
+                longOrNull(stats, "totalDocsExamined"),
+                longOrNull(stats, "totalKeysExamined"),
+                longOrNull(stats, "nReturned"),
+                null
+        );
+    }
+
+    /**
+     * Walk the explain output (find, aggregate $cursor, sharded shards.*) collecting the winning plan's stages and
+     * index names and the first executionStats document. Rejected plans are skipped.
+     */
+    private static void collectPlan(BsonValue value, Set<String> stages, Set<String> indexes, BsonDocument[] executionStats) {
+        if (value.isArray()) {
+            for (BsonValue item : value.asArray()) {
+                collectPlan(item, stages, indexes, executionStats);
+            }
+            return;
+        }
+        if (!value.isDocument()) {
+            return;
+        }
+        for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+            String key = entry.getKey();
+            BsonValue child = entry.getValue();
+            switch (key) {
+                case "rejectedPlans", "allPlansExecution" -> {
+                    // not the plan that ran
+                }
+                case "stage" -> {
+                    if (child.isString()) {
+                        stages.add(child.asString().getValue());
+                    }
+                }
+                case "indexName" -> {
+                    if (child.isString()) {
+                        indexes.add(child.asString().getValue());
+                    }
+                }
+                case "executionStats" -> {
+                    if (executionStats[0] == null && child.isDocument()) {
+                        executionStats[0] = child.asDocument();
+                    }
+                    collectPlan(child, stages, indexes, executionStats);
+                }
+                default -> collectPlan(child, stages, indexes, executionStats);
+            }
+        }
+    }
+
+    private static Long longOrNull(BsonDocument document, String key) {
+        if (document == null || !document.containsKey(key) || !document.get(key).isNumber()) {
+            return null;
+        }
+        return document.get(key).asNumber().longValue();
+    }
+
+    /* ============================================================
+       Command parsing
+       ============================================================ */
+
+    private static String collectionOf(String commandName, BsonDocument command) {
+        if ("getMore".equals(commandName)) {
+            BsonValue collection = command.get("collection");
+            return collection != null && collection.isString() ? collection.asString().getValue() : null;
+        }
+        BsonValue target = command.get(commandName);
+        return target != null && target.isString() ? target.asString().getValue() : null;
+    }
+
+    /**
+     * The command's filter / pipeline (first statement for update / delete) with every value redacted.
+     */
+    private static String shapeOf(String commandName, BsonDocument command) {
+        BsonValue source = command.get(SHAPE_FIELDS.get(commandName));
+        if (source == null) {
+            return "{}";
+        }
+        if (("update".equals(commandName) || "delete".equals(commandName)) && source.isArray()) {
+            BsonArray statements = source.asArray();
+            if (statements.isEmpty() || !statements.get(0).isDocument()) {
+                return "{}";
+            }
+            source = statements.get(0).asDocument().get("q", new BsonDocument());
+        }
+        BsonValue redacted = redact(source);
+        return redacted.isDocument()
+                ? redacted.asDocument().toJson()
+                : new BsonDocument(SHAPE_FIELDS.get(commandName), redacted).toJson();
+    }
+
+    private static BsonValue redact(BsonValue value) {
+        if (value.isDocument()) {
+            BsonDocument redacted = new BsonDocument();
+            value.asDocument().forEach((key, child) -> redacted.append(key, redact(child)));
+            return redacted;
+        }
+        if (value.isArray()) {
+            if (value.asArray().stream().noneMatch(item -> item.isDocument() || item.isArray())) {
+                // e.g. an $in list: one placeholder whatever its length, so the shape does not depend on it
+                return new BsonString(REDACTED);
+            }
+            List<BsonValue> items = new ArrayList<>(value.asArray().size());
+            for (BsonValue item : value.asArray()) {
+                items.add(redact(item));
+            }
+            return new BsonArray(items);
+        }
+        return new BsonString(REDACTED);
+    }
+
+    /**
+     * @param command copy of the command ready for explain, null when it is not explained
+     */
+    private record StartedCommand(String database, String collection, String commandName, BsonDocument command) {
+    }
+}
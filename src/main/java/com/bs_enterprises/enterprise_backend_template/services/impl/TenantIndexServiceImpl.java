@@ -0,0 +1,215 @@
+package com.bs_enterprises.enterprise_backend_template.services.impl;
+
+import com.bs_enterprises.enterprise_backend_template.config.ConcurrencyConfig;
+import com.bs_enterprises.enterprise_backend_template.constants.MongoDBConstants;
+import com.bs_enterprises.enterprise_backend_template.events.TenantDatabaseDroppedEvent;
+import com.bs_enterprises.enterprise_backend_template.events.TenantTemplateCreatedEvent;
+import com.bs_enterprises.enterprise_backend_template.models.indexes.IndexStatus;
+import com.bs_enterprises.enterprise_backend_template.models.indexes.ProvisioningStatus;
+import com.bs_enterprises.enterprise_backend_template.models.indexes.TenantIndexReport;
+import com.bs_enterprises.enterprise_backend_template.repositories.IndexContribution;
+import com.bs_enterprises.enterprise_backend_template.repositories.TenantIndexContributor;
+import com.bs_enterprises.enterprise_backend_template.services.DatabaseService;
+import com.bs_enterprises.enterprise_backend_template.services.TenantIndexService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Tenant index provisioning.
+ * <p>
+ * The default database gets its @Indexed / @CompoundIndex indexes from spring.data.mongodb.auto-index-creation,
+ * tenant databases do not (auto index creation is off on the shared tenant mapping context). This service
+ * creates them the first time a tenant template is built on this node, in the background, together with the
+ * indexes contributed by {@link TenantIndexContributor} beans (repositories: search indexes), followed by
+ * their backfills (repositories: the _search shadow of existing documents).
+ * <p>
+ * Status per tenant is kept in memory: exposed through the "tenantindexes" actuator endpoint and the
+ * "mongo.tenant.indexes" gauge (tenants per status).
+ */
+@Slf4j
+@Service
+public class TenantIndexServiceImpl implements TenantIndexService {
+
+    private static final String METRIC_TENANTS = "mongo.tenant.indexes";
+    private static final String METRIC_PROVISIONING = "mongo.tenant.indexes.provisioning";
+
+    private final DatabaseService databaseService;
+    private final ObjectProvider<TenantIndexContributor> contributors;
+    private final ExecutorService executor;
+    private final Timer provisioningTimer;
+
+    private final Map<String, TenantIndexReport> reports = new ConcurrentHashMap<>();
+    private volatile List<IndexContribution> entityIndexes;
+
+    public TenantIndexServiceImpl(DatabaseService databaseService,
+                                  ObjectProvider<TenantIndexContributor> contributors,
+                                  @Qualifier(ConcurrencyConfig.VIRTUAL_THREAD_EXECUTOR) ExecutorService executor,
+                                  MeterRegistry meterRegistry) {
+        this.databaseService = databaseService;
+        this.contributors = contributors;
+        this.executor = executor;
+        this.provisioningTimer = Timer.builder(METRIC_PROVISIONING)
+                .description("Time to ensure all indexes of one tenant database")
+                .register(meterRegistry);
+
+        for (ProvisioningStatus status : ProvisioningStatus.values()) {
+            Gauge.builder(METRIC_TENANTS, reports, r -> r.values().stream().filter(report -> report.getStatus() == status).count())
+                    .description("Tenants by index provisioning status (this node)")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    @EventListener
+    public void onTenantTemplateCreated(TenantTemplateCreatedEvent event) {
+        provisionAsync(event.tenant());
+    }
+
+    @EventListener
+    public void onTenantDatabaseDropped(TenantDatabaseDroppedEvent event) {
+        reports.remove(event.tenant());
+    }
+
+    @Override
+    public void provisionAsync(String tenant) {
+        TenantIndexReport current = reports.get(tenant);
+        if (current != null && current.getStatus() != ProvisioningStatus.FAILED) {
+            return; // pending, running or done
+        }
+
+        TenantIndexReport pending = TenantIndexReport.pending(tenant);
+        boolean claimed = current == null
+                ? reports.putIfAbsent(tenant, pending) == null
+                : reports.replace(tenant, current, pending);
+        if (claimed) {
+            // must not run on the publishing thread: it is inside the template registry's compute for this tenant
+            executor.submit(() -> provision(tenant));
+        }
+    }
+
+    @Override
+    public TenantIndexReport provision(String tenant) {
+        Instant startedAt = Instant.now();
+        reports.put(tenant, new TenantIndexReport(tenant, ProvisioningStatus.RUNNING, startedAt, null, List.of()));
+        log.info("provision tenant indexes called — tenant='{}'", tenant);
+
+        TenantIndexReport report = provisioningTimer.record(() -> {
+            List<IndexStatus> statuses = new ArrayList<>();
+            try {
+                MongoTemplate mongoTemplate = databaseService.changeDatabaseAndGetNewMongoTemplate(tenant);
+                for (IndexContribution contribution : allContributions(mongoTemplate)) {
+                    IndexOperations indexOps = mongoTemplate.indexOps(contribution.collection());
+                    for (IndexDefinition index : contribution.indexes()) {
+                        statuses.add(ensure(tenant, indexOps, contribution.collection(), index));
+                    }
+                }
+                // backfills run even if an index failed: they only need the data, not the index
+                contributors.orderedStream().forEach(contributor -> contributor.afterIndexesProvisioned(tenant));
+            } catch (Exception ex) {
+                log.error("provision tenant indexes failed — tenant='{}', error={}", tenant, ex.getMessage(), ex);
+                statuses.add(new IndexStatus(null, null, null, false, ex.getMessage()));
+            }
+
+            boolean allReady = statuses.stream().allMatch(IndexStatus::ready);
+            return new TenantIndexReport(
+                    tenant,
+                    allReady ? ProvisioningStatus.PROVISIONED : ProvisioningStatus.FAILED,
+                    startedAt,
+                    Instant.now(),
+                    List.copyOf(statuses)
+            );
+        });
+
+        reports.put(tenant, report);
+        log.info("provision tenant indexes completed — tenant='{}', status={}, indexes={}",
+                tenant, report.getStatus(), report.getIndexes().size());
+        return report;
+    }
+
+    @Override
+    public Map<String, TenantIndexReport> reports() {
+        return new TreeMap<>(reports);
+    }
+
+    @Override
+    public TenantIndexReport report(String tenant) {
+        return reports.get(tenant);
+    }
+
+    private IndexStatus ensure(String tenant, IndexOperations indexOps, String collection, IndexDefinition index) {
+        String keys = new Document(index.getIndexKeys()).toJson();
+        String name = index.getIndexOptions().getString("name");
+        try {
+            String created = indexOps.ensureIndex(index);
+            return new IndexStatus(collection, created, keys, true, null);
+        } catch (Exception ex) {
+            log.warn("ensureIndex failed — tenant='{}', collection='{}', keys={}, error={}",
+                    tenant, collection, keys, ex.getMessage());
+            return new IndexStatus(collection, name, keys, false, ex.getMessage());
+        }
+    }
+
+    private List<IndexContribution> allContributions(MongoTemplate mongoTemplate) {
+        List<IndexContribution> all = new ArrayList<>(entityIndexes(mongoTemplate));
+        contributors.orderedStream().forEach(contributor -> all.addAll(contributor.tenantIndexes()));
+        return all;
+    }
+
+    /**
+     * Indexes declared on @Document entities, resolved once from the shared tenant mapping context.
+     * Definitions on _id alone are skipped: every collection already has that index.
+     */
+    private List<IndexContribution> entityIndexes(MongoTemplate mongoTemplate) {
+        List<IndexContribution> resolved = entityIndexes;
+        if (resolved != null) {
+            return resolved;
+        }
+
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+                mongoTemplate.getConverter().getMappingContext();
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+
+        Map<String, List<IndexDefinition>> byCollection = new LinkedHashMap<>();
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+                continue;
+            }
+            for (MongoPersistentEntityIndexResolver.IndexDefinitionHolder holder : resolver.resolveIndexForEntity(entity)) {
+                if (holder.getIndexKeys().keySet().equals(Set.of(MongoDBConstants.FIELD_ID))) {
+                    continue;
+                }
+                byCollection.computeIfAbsent(holder.getCollection(), c -> new ArrayList<>()).add(holder);
+            }
+        }
+
+        resolved = byCollection.entrySet().stream()
+                .map(entry -> new IndexContribution(entry.getKey(), List.copyOf(entry.getValue())))
+                .toList();
+        entityIndexes = resolved;
+        return resolved;
+    }
+}
@@ -1,5 +1,7 @@
 package com.bs_enterprises.enterprise_backend_template.services.impl;
 
+import com.bs_enterprises.enterprise_backend_template.config.ConcurrencyConfig;
+import com.bs_enterprises.enterprise_backend_template.config.MongoTenantProperties;
 import com.bs_enterprises.enterprise_backend_template.constants.MongoDBConstants;
 import com.bs_enterprises.enterprise_backend_template.keys.DatabaseKeys;
 import com.bs_enterprises.enterprise_backend_template.keys.ExecutionKeys;
@@ -7,27 +9,76 @@ import com.bs_enterprises.enterprise_backend_template.models.users.KeycloakUserM
 import com.bs_enterprises.enterprise_backend_template.models.users.LoadedArtifacts;
 import com.bs_enterprises.enterprise_backend_template.models.users.UserSecrets;
 import com.bs_enterprises.enterprise_backend_template.repositories.GenericMongoRepository;
+import com.bs_enterprises.enterprise_backend_template.services.DatabaseService;
 import com.bs_enterprises.enterprise_backend_template.services.IndexingService;
 import com.bs_enterprises.enterprise_backend_template.services.KeycloakUserService;
 import com.bs_enterprises.enterprise_backend_template.services.UserAccountService;
 import com.bs_enterprises.enterprise_backend_template.services.UserSecretService;
 import com.bs_enterprises.enterprise_backend_template.utils.SnowflakeIdGeneratorUtil;
 import io.micrometer.common.util.StringUtils;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class UserAccountServiceImpl implements UserAccountService {
 
+    private static final String METRIC_PROVISIONING_STEP = "user.provisioning.step";
+    private static final String STEP_KEYCLOAK = "keycloak_create";
+    private static final String STEP_USER_DOCUMENT = "user_document";
+    private static final String STEP_SECRETS = "user_secrets";
+    private static final String STEP_INDEX_ENTRIES = "index_entries";
+    private static final String STEP_TRANSACTION = "mongo_transaction";
+
+    /**
+     * KeycloakUserModel fields Keycloak stores (phone and studioIds are local only).
+     */
+    private static final Set<String> KEYCLOAK_FIELDS =
+            Set.of("username", "firstName", "lastName", "email", "enabled", "emailVerified");
+
+    /**
+     * Changed by Keycloak itself (verification flows), so the local value may be stale: sent whenever requested.
+     */
+    private static final Set<String> KEYCLOAK_MANAGED_FIELDS = Set.of("emailVerified");
+
     private final KeycloakUserService keycloakUserService;
     private final IndexingService indexingService;
     private final UserSecretService userSecretService;
     private final GenericMongoRepository<KeycloakUserModel> keycloakUserRepository;
+    private final MongoTenantProperties mongoTenantProperties;
+    private final DatabaseService databaseService;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+
+    public UserAccountServiceImpl(KeycloakUserService keycloakUserService,
+                                  IndexingService indexingService,
+                                  UserSecretService userSecretService,
+                                  GenericMongoRepository<KeycloakUserModel> keycloakUserRepository,
+                                  MongoTenantProperties mongoTenantProperties,
+                                  DatabaseService databaseService,
+                                  @Qualifier(ConcurrencyConfig.VIRTUAL_THREAD_EXECUTOR) ExecutorService executor,
+                                  MeterRegistry meterRegistry) {
+        this.keycloakUserService = keycloakUserService;
+        this.indexingService = indexingService;
+        this.userSecretService = userSecretService;
+        this.keycloakUserRepository = keycloakUserRepository;
+        this.mongoTenantProperties = mongoTenantProperties;
+        this.databaseService = databaseService;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+    }
 
     @Override
     public String prepareAndValidateIdentifiers(String realmName,
@@ -44,33 +95,34 @@ public class UserAccountServiceImpl implements UserAccountService {
             log.info("Generated id='{}' for realm='{}'", id, realmName);
         }
 
-        // uid uniqueness
-        if (indexingService.isValueExists(realmName, null, id, MongoDBConstants.INDEX_UIDS)) {
+        // reserve uid / email / phone in one round trip (unique _id), owned by the uid: nothing stays reserved on a
+        // conflict, errors keep the uid → email → phone precedence; provisionNewUser confirms, abandoned ones expire
+        Map<String, List<String>> identifiers = identifiersOf(id, email, phone);
+        Map<String, Set<String>> taken = indexingService.reserveValues(
+                realmName, null, id, identifiers, mongoTenantProperties.getReservation().getTtl());
+
+        if (taken.containsKey(MongoDBConstants.INDEX_UIDS)) {
             log.warn("{} — realm='{}', id='{}'", ExecutionKeys.USER_ID_ALREADY_EXISTS, realmName, id);
             throw new IllegalArgumentException(ExecutionKeys.USER_ID_ALREADY_EXISTS);
         }
-
-        // email uniqueness
-        if (!StringUtils.isBlank(email)) {
-            if (indexingService.isValueExists(realmName, null, email, MongoDBConstants.INDEX_EMAILS)) {
-                log.warn("{} — realm='{}', email='{}'", ExecutionKeys.EMAIL_ALREADY_EXISTS, realmName, email);
-                throw new IllegalArgumentException(ExecutionKeys.EMAIL_ALREADY_EXISTS);
-            }
+        if (taken.containsKey(MongoDBConstants.INDEX_EMAILS)) {
+            log.warn("{} — realm='{}', email='{}'", ExecutionKeys.EMAIL_ALREADY_EXISTS, realmName, email);
+            throw new IllegalArgumentException(ExecutionKeys.EMAIL_ALREADY_EXISTS);
         }
-
-        // phone uniqueness
-        if (!StringUtils.isBlank(phone)) {
-            if (indexingService.isValueExists(realmName, null, phone, MongoDBConstants.INDEX_MOBILES)) {
-                log.warn("{} — realm='{}', phone='{}'", ExecutionKeys.PHONE_ALREADY_EXISTS, realmName, phone);
-                throw new IllegalArgumentException(ExecutionKeys.PHONE_ALREADY_EXISTS);
-            }
+        if (taken.containsKey(MongoDBConstants.INDEX_MOBILES)) {
+            log.warn("{} — realm='{}', phone='{}'", ExecutionKeys.PHONE_ALREADY_EXISTS, realmName, phone);
+            throw new IllegalArgumentException(ExecutionKeys.PHONE_ALREADY_EXISTS);
         }
 
         // validate studios if required or if provided
-        if ((studioRequired || (studioIds != null && !studioIds.isEmpty()))
-                && !indexingService.existsAllDocumentsByIds(realmName, null, studioIds, MongoDBConstants.COLLECTION_STUDIOS)) {
-            log.warn("{} — realm='{}', studioIds='{}'", ExecutionKeys.STUDIO_NOT_FOUND, realmName, studioIds);
-            throw new IllegalArgumentException(ExecutionKeys.STUDIO_NOT_FOUND);
+        if (studioRequired || (studioIds != null && !studioIds.isEmpty())) {
+            Set<String> missingStudioIds =
+                    indexingService.findMissingIds(realmName, null, studioIds, MongoDBConstants.COLLECTION_STUDIOS);
+            if (!missingStudioIds.isEmpty()) {
+                log.warn("{} — realm='{}', missing studioIds='{}'", ExecutionKeys.STUDIO_NOT_FOUND, realmName, missingStudioIds);
+                indexingService.releaseValues(realmName, null, id, identifiers);
+                throw new IllegalArgumentException(ExecutionKeys.STUDIO_NOT_FOUND);
+            }
         }
 
         return id;
@@ -80,24 +132,232 @@ public class UserAccountServiceImpl implements UserAccountService {
     public void provisionNewUser(String realmName, KeycloakUserModel kcUser) {
         Objects.requireNonNull(kcUser, "kcUser required");
 
-        // create in Keycloak
-        log.info("Creating user in Keycloak realm='{}' username='{}'", realmName, kcUser.getUsername());
-        String keycloakUserId = keycloakUserService.createUser(realmName, kcUser);
-        log.info("Keycloak created id='{}' for local id='{}'", keycloakUserId, kcUser.getId());
+        MongoTenantProperties.Provisioning provisioning = mongoTenantProperties.getProvisioning();
+        Map<String, List<String>> identifiers = identifiersOf(kcUser.getId(), kcUser.getEmail(), kcUser.getPhone());
+        Map<String, Long> stepMillis = new ConcurrentHashMap<>();
+        String mode = provisioning.isParallel() ? "parallel" : "sequential";
+
+        timed("total", mode, stepMillis, () -> {
+            if (provisioning.isParallel()) {
+                provisionInParallel(realmName, kcUser, identifiers, provisioning.isTransactional(), stepMillis);
+            } else {
+                provisionSequentially(realmName, kcUser, identifiers, provisioning.isTransactional(), stepMillis);
+            }
+            return null;
+        });
+
+        log.info("provisionNewUser completed — realm='{}', id='{}', mode={}, transactional={}, stepMillis={}",
+                realmName, kcUser.getId(), mode, provisioning.isTransactional(), new TreeMap<>(stepMillis));
+    }
 
-        // persist KC model via repository
-        keycloakUserRepository.create(kcUser, realmName);
+    /**
+     * Keycloak first, then the Mongo writes (which need nothing but the Keycloak id for the secrets).
+     */
+    private void provisionSequentially(String realmName,
+                                       KeycloakUserModel kcUser,
+                                       Map<String, List<String>> identifiers,
+                                       boolean transactional,
+                                       Map<String, Long> stepMillis) {
+        String keycloakUserId;
+        try {
+            log.info("Creating user in Keycloak realm='{}' username='{}'", realmName, kcUser.getUsername());
+            keycloakUserId = timed(STEP_KEYCLOAK, "sequential", stepMillis,
+                    () -> keycloakUserService.createUser(realmName, kcUser));
+            log.info("Keycloak created id='{}' for local id='{}'", keycloakUserId, kcUser.getId());
+        } catch (RuntimeException ex) {
+            log.warn("Keycloak create failed — realm='{}', id='{}': releasing reserved identifiers", realmName, kcUser.getId());
+            indexingService.releaseValues(realmName, null, kcUser.getId(), identifiers);
+            throw ex;
+        }
 
-        // persist secrets
+        // user document, secrets and index entries: all or nothing
+        CompletableFuture<String> keycloakId = CompletableFuture.completedFuture(keycloakUserId);
+        try {
+            if (transactional) {
+                persistInTransaction(realmName, kcUser, identifiers, keycloakId, "sequential", stepMillis);
+            } else {
+                MongoWrites writes = new MongoWrites();
+                try {
+                    timed(STEP_USER_DOCUMENT, "sequential", stepMillis, () -> keycloakUserRepository.create(kcUser, realmName));
+                    writes.userCreated = true;
+                    saveSecrets(realmName, kcUser, keycloakUserId, null, "sequential", stepMillis);
+                    writes.secretsSaved = true;
+                    confirmIdentifiers(realmName, kcUser.getId(), identifiers, null, "sequential", stepMillis);
+                } catch (RuntimeException ex) {
+                    undoMongoWrites(realmName, kcUser, writes, ex);
+                    throw ex;
+                }
+            }
+        } catch (RuntimeException ex) {
+            log.error("Provisioning failed — realm='{}', id='{}': deleting Keycloak user '{}', error={}",
+                    realmName, kcUser.getId(), keycloakUserId, ex.getMessage(), ex);
+            compensateKeycloakUser(realmName, keycloakUserId);
+            indexingService.releaseValues(realmName, null, kcUser.getId(), identifiers);
+            throw ex;
+        }
+    }
+
+    /**
+     * Keycloak create on a virtual thread while the user document is written; UserSecrets (the only write needing
+     * the Keycloak id) and the index confirmations go once it has settled. Any failure rolls back both sides:
+     * the Keycloak user is deleted once its create has settled, Mongo writes are aborted or deleted, and the
+     * reservations are released.
+     */
+    private void provisionInParallel(String realmName,
+                                     KeycloakUserModel kcUser,
+                                     Map<String, List<String>> identifiers,
+                                     boolean transactional,
+                                     Map<String, Long> stepMillis) {
+        log.info("Creating user in Keycloak realm='{}' username='{}' (parallel)", realmName, kcUser.getUsername());
+        CompletableFuture<String> keycloakId = CompletableFuture.supplyAsync(
+                () -> timed(STEP_KEYCLOAK, "parallel", stepMillis, () -> keycloakUserService.createUser(realmName, kcUser)),
+                executor);
+
+        MongoWrites writes = new MongoWrites();
+        try {
+            if (transactional) {
+                // the transaction waits for the Keycloak id before writing the secrets (well within its lifetime)
+                persistInTransaction(realmName, kcUser, identifiers, keycloakId, "parallel", stepMillis);
+            } else {
+                CompletableFuture<Void> userDocument = CompletableFuture.runAsync(() -> {
+                    timed(STEP_USER_DOCUMENT, "parallel", stepMillis, () -> keycloakUserRepository.create(kcUser, realmName));
+                    writes.userCreated = true;
+                }, executor);
+                RuntimeException failure = settle(userDocument, null);
+                failure = settle(keycloakId, failure);
+                if (failure != null) {
+                    throw failure;
+                }
+
+                // confirmed last: a confirmation must never outlive a failed Keycloak create
+                saveSecrets(realmName, kcUser, keycloakId.join(), null, "parallel", stepMillis);
+                writes.secretsSaved = true;
+                confirmIdentifiers(realmName, kcUser.getId(), identifiers, null, "parallel", stepMillis);
+            }
+            log.info("Keycloak created id='{}' for local id='{}'", keycloakId.join(), kcUser.getId());
+        } catch (RuntimeException ex) {
+            // never leave a Keycloak user behind: wait for an in-flight create before deciding
+            settle(keycloakId, null);
+            String keycloakUserId = keycloakId.isCompletedExceptionally() ? null : keycloakId.join();
+            log.error("Provisioning failed — realm='{}', id='{}': rolling back (keycloakId='{}'), error={}",
+                    realmName, kcUser.getId(), keycloakUserId, ex.getMessage(), ex);
+            if (!transactional) {
+                undoMongoWrites(realmName, kcUser, writes, ex);
+            }
+            if (keycloakUserId != null) {
+                compensateKeycloakUser(realmName, keycloakUserId);
+            }
+            indexingService.releaseValues(realmName, null, kcUser.getId(), identifiers);
+            throw ex;
+        }
+    }
+
+    private void persistInTransaction(String realmName,
+                                      KeycloakUserModel kcUser,
+                                      Map<String, List<String>> identifiers,
+                                      CompletableFuture<String> keycloakId,
+                                      String mode,
+                                      Map<String, Long> stepMillis) {
+        timed(STEP_TRANSACTION, mode, stepMillis, () -> databaseService.inTransaction(realmName, mongoTemplate -> {
+            timed(STEP_USER_DOCUMENT, mode, stepMillis, () -> keycloakUserRepository.create(kcUser, realmName, mongoTemplate));
+            confirmIdentifiers(realmName, kcUser.getId(), identifiers, mongoTemplate, mode, stepMillis);
+            saveSecrets(realmName, kcUser, join(keycloakId), mongoTemplate, mode, stepMillis);
+            return null;
+        }));
+    }
+
+    private void saveSecrets(String realmName, KeycloakUserModel kcUser, String keycloakUserId,
+                             MongoTemplate optionalMongoTemplate, String mode, Map<String, Long> stepMillis) {
         UserSecrets secrets = new UserSecrets(kcUser.getId(), keycloakUserId);
-        userSecretService.save(secrets, realmName, null);
-
-        // create indices: uid, email, phone
-        indexingService.createIndexEntry(realmName, null, kcUser.getId(), MongoDBConstants.INDEX_UIDS);
-        if (!StringUtils.isBlank(kcUser.getEmail()))
-            indexingService.createIndexEntry(realmName, null, kcUser.getEmail(), MongoDBConstants.INDEX_EMAILS);
-        if (!StringUtils.isBlank(kcUser.getPhone()))
-            indexingService.createIndexEntry(realmName, null, kcUser.getPhone(), MongoDBConstants.INDEX_MOBILES);
+        timed(STEP_SECRETS, mode, stepMillis, () -> userSecretService.save(secrets, realmName, optionalMongoTemplate));
+    }
+
+    private void confirmIdentifiers(String realmName, String owner, Map<String, List<String>> identifiers,
+                                    MongoTemplate optionalMongoTemplate, String mode, Map<String, Long> stepMillis) {
+        timed(STEP_INDEX_ENTRIES, mode, stepMillis, () -> {
+            indexingService.confirmValues(realmName, optionalMongoTemplate, owner, identifiers);
+            return null;
+        });
+    }
+
+    /**
+     * Without a transaction: delete the user document / secrets that were written before the failure.
+     */
+    private void undoMongoWrites(String realmName, KeycloakUserModel kcUser, MongoWrites writes, RuntimeException failure) {
+        try {
+            if (writes.secretsSaved) userSecretService.deleteById(kcUser.getId(), realmName, null);
+            if (writes.userCreated) keycloakUserRepository.delete(kcUser.getId(), realmName);
+        } catch (RuntimeException cleanupEx) {
+            log.error("Provisioning cleanup failed — realm='{}', id='{}': {}", realmName, kcUser.getId(),
+                    cleanupEx.getMessage(), cleanupEx);
+            failure.addSuppressed(cleanupEx);
+        }
+    }
+
+    private void compensateKeycloakUser(String realmName, String keycloakUserId) {
+        try {
+            keycloakUserService.deleteUser(realmName, keycloakUserId);
+        } catch (RuntimeException ex) {
+            // left for manual cleanup: the Keycloak user has no local document
+            log.error("Compensation failed — realm='{}', keycloakId='{}' is orphaned in Keycloak: {}",
+                    realmName, keycloakUserId, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Time one provisioning step into "user.provisioning.step" and the per-call step map.
+     */
+    private <T> T timed(String step, String mode, Map<String, Long> stepMillis, Supplier<T> work) {
+        long started = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            long elapsed = System.nanoTime() - started;
+            stepMillis.merge(step, TimeUnit.NANOSECONDS.toMillis(elapsed), Long::sum);
+            Timer.builder(METRIC_PROVISIONING_STEP)
+                    .description("Duration of each user provisioning step")
+                    .tag("step", step)
+                    .tag("mode", mode)
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Wait for the future; return the first failure seen (the earlier one wins).
+     */
+    private static RuntimeException settle(CompletableFuture<?> future, RuntimeException failure) {
+        try {
+            join(future);
+            return failure;
+        } catch (RuntimeException ex) {
+            if (failure == null) {
+                return ex;
+            }
+            if (failure != ex) {
+                failure.addSuppressed(ex);
+            }
+            return failure;
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Which non-transactional writes went through (written from worker threads).
+     */
+    private static final class MongoWrites {
+        private volatile boolean userCreated;
+        private volatile boolean secretsSaved;
     }
 
     @Override
@@ -217,8 +477,10 @@ public class UserAccountServiceImpl implements UserAccountService {
                         // validate that all studio ids exist
                         @SuppressWarnings("unchecked")
                         Collection<String> ids = (Collection<String>) collection;
-                        if (!ids.isEmpty() && !indexingService.existsAllDocumentsByIds(realmName, null, List.copyOf(ids), MongoDBConstants.COLLECTION_STUDIOS)) {
-                            log.warn("updateUser — tenant='{}', id='{}': some studioIds not found {}", realmName, userId, ids);
+                        Set<String> missingStudioIds =
+                                indexingService.findMissingIds(realmName, null, ids, MongoDBConstants.COLLECTION_STUDIOS);
+                        if (!missingStudioIds.isEmpty()) {
+                            log.warn("updateUser — tenant='{}', id='{}': studioIds not found {}", realmName, userId, missingStudioIds);
                             throw new IllegalArgumentException(ExecutionKeys.STUDIO_NOT_FOUND);
                         }
                         kcUpdates.put("studioIds", List.copyOf(ids));
@@ -236,13 +498,26 @@ public class UserAccountServiceImpl implements UserAccountService {
             }
         }
 
-        // update Keycloak (use stored keycloak id)
-        String keycloakUserId = secrets.getKeycloakUserId();
-        try {
-            keycloakUserService.updateUser(realmName, keycloakUserId, kcUser);
-        } catch (Exception ex) {
-            log.error("Failed to update Keycloak user for id={}: {}", userId, ex.getMessage(), ex);
-            throw new IllegalStateException(DatabaseKeys.UPDATE_FAILED);
+        // update Keycloak (use stored keycloak id): only the Keycloak fields that changed, none at all for
+        // local-only changes. The local document is the snapshot the change was detected against, so no GET.
+        Set<String> keycloakChanges = new LinkedHashSet<>();
+        for (String field : kcUpdates.keySet()) {
+            if (KEYCLOAK_FIELDS.contains(field)) keycloakChanges.add(field);
+        }
+        for (String field : KEYCLOAK_MANAGED_FIELDS) {
+            if (updates.containsKey(field)) keycloakChanges.add(field);
+        }
+
+        if (keycloakChanges.isEmpty()) {
+            log.info("updateUser — tenant='{}', id='{}': no Keycloak field changed, Keycloak not called", realmName, userId);
+        } else {
+            String keycloakUserId = secrets.getKeycloakUserId();
+            try {
+                keycloakUserService.updateUserFields(realmName, keycloakUserId, kcUser, keycloakChanges);
+            } catch (Exception ex) {
+                log.error("Failed to update Keycloak user for id={}: {}", userId, ex.getMessage(), ex);
+                throw new IllegalStateException(DatabaseKeys.UPDATE_FAILED);
+            }
         }
 
         // update indices for email/phone
@@ -264,8 +539,13 @@ public class UserAccountServiceImpl implements UserAccountService {
         }
 
         // persist changes to KeycloakUserModel via repository update if kcUpdates present
+        // (findAndModify already returns the fresh model)
         if (!kcUpdates.isEmpty()) {
-            keycloakUserRepository.update(userId, kcUpdates,KeycloakUserModel.allowedKeysForUpdate , realmName);
+            KeycloakUserModel updated =
+                    keycloakUserRepository.update(userId, kcUpdates, KeycloakUserModel.allowedKeysForUpdate, realmName);
+            if (updated != null) {
+                return updated;
+            }
         }
 
         // return fresh model
@@ -315,4 +595,19 @@ public class UserAccountServiceImpl implements UserAccountService {
         boolean secretDeleted = userSecretService.deleteById(userId, realmName, null);
         if (!secretDeleted) log.warn("UserSecrets deletion returned false for id='{}' realm='{}'", userId, realmName);
     }
+
+    /**
+     * Index collection → identifier values (blank email / phone left out), in uid → email → phone order.
+     */
+    static Map<String, List<String>> identifiersOf(String id, String email, String phone) {
+        Map<String, List<String>> identifiers = new LinkedHashMap<>();
+        identifiers.put(MongoDBConstants.INDEX_UIDS, List.of(id));
+        if (!StringUtils.isBlank(email)) {
+            identifiers.put(MongoDBConstants.INDEX_EMAILS, List.of(email));
+        }
+        if (!StringUtils.isBlank(phone)) {
+            identifiers.put(MongoDBConstants.INDEX_MOBILES, List.of(phone));
+        }
+        return identifiers;
+    }
 }
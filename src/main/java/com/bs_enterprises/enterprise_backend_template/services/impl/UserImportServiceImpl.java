@@ -0,0 +1,789 @@
+package com.bs_enterprises.enterprise_backend_template.services.impl;
+
+import com.bs_enterprises.enterprise_backend_template.config.ConcurrencyConfig;
+import com.bs_enterprises.enterprise_backend_template.config.MongoTenantProperties;
+import com.bs_enterprises.enterprise_backend_template.constants.MongoDBConstants;
+import com.bs_enterprises.enterprise_backend_template.keys.ExecutionKeys;
+import com.bs_enterprises.enterprise_backend_template.models.bulks.BulkInsertOptions;
+import com.bs_enterprises.enterprise_backend_template.models.bulks.BulkInsertResult;
+import com.bs_enterprises.enterprise_backend_template.models.bulks.BulkItemResult;
+import com.bs_enterprises.enterprise_backend_template.models.bulks.BulkItemStatus;
+import com.bs_enterprises.enterprise_backend_template.models.exports.ExportFormat;
+import com.bs_enterprises.enterprise_backend_template.models.imports.ImportJob;
+import com.bs_enterprises.enterprise_backend_template.models.imports.ImportJobStatus;
+import com.bs_enterprises.enterprise_backend_template.models.imports.ImportPendingRow;
+import com.bs_enterprises.enterprise_backend_template.models.imports.ImportRowError;
+import com.bs_enterprises.enterprise_backend_template.models.users.KeycloakBulkCreateResult;
+import com.bs_enterprises.enterprise_backend_template.models.users.KeycloakUserModel;
+import com.bs_enterprises.enterprise_backend_template.models.users.UserSecrets;
+import com.bs_enterprises.enterprise_backend_template.repositories.GenericMongoRepository;
+import com.bs_enterprises.enterprise_backend_template.services.DatabaseService;
+import com.bs_enterprises.enterprise_backend_template.services.IndexingService;
+import com.bs_enterprises.enterprise_backend_template.services.KeycloakUserService;
+import com.bs_enterprises.enterprise_backend_template.services.UserImportService;
+import com.bs_enterprises.enterprise_backend_template.services.UserSecretService;
+import com.bs_enterprises.enterprise_backend_template.utils.SnowflakeIdGeneratorUtil;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Chunked user import. Per chunk:
+ * <ol>
+ *     <li>rows are converted to KeycloakUserModel and bean-validated; missing ids are generated</li>
+ *     <li>the studioIds of all rows are checked in one findMissingIds round trip; rows naming an unknown studio
+ *     are rejected, as prepareAndValidateIdentifiers does for a single user</li>
+ *     <li>values repeated within the chunk are rejected, then one findExistingValues round trip rejects values
+ *     already taken (earlier chunks are confirmed by then, so repeats across chunks are caught here)</li>
+ *     <li>the remaining identifiers are reserved in one round trip (a collision, i.e. a concurrent registration,
+ *     rejects the colliding rows and the rest is reserved again)</li>
+ *     <li>Keycloak users are created with KeycloakUserService.createUsers (realm partial import), at most
+ *     properties.mongodb.user-import.keycloak-concurrency Keycloak calls at once on this node</li>
+ *     <li>users (createAll) and secrets are bulk inserted, the identifiers confirmed</li>
+ * </ol>
+ * The job is saved before the Keycloak calls, after them (Keycloak ids) and at the end of the chunk, which is
+ * what a resumed run uses to finish or undo the interrupted chunk.
+ * <p>
+ * Metrics: "user.import.rows" by result (created / failed), "user.import.chunk" (time per chunk).
+ */
+@Slf4j
+@Service
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final String METRIC_ROWS = "user.import.rows";
+    private static final String FIELD_STATUS = "status";
+    private static final String FIELD_UPDATED_AT = "updatedAt";
+    private static final int USERNAME_LOOKUP_MAX = 10;
+    private static final String COLUMN_STUDIO_IDS = "studioIds";
+    private static final Pattern STUDIO_ID_SEPARATOR = Pattern.compile("[;,]");
+    private static final TypeReference<Map<String, Object>> ROW_TYPE = new TypeReference<>() {
+    };
+
+    private final DatabaseService databaseService;
+    private final IndexingService indexingService;
+    private final KeycloakUserService keycloakUserService;
+    private final UserSecretService userSecretService;
+    private final GenericMongoRepository<KeycloakUserModel> keycloakUserRepository;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper;
+    private final ExecutorService executor;
+    private final MongoTenantProperties.UserImport properties;
+    private final MongoTenantProperties.Reservation reservation;
+    private final Semaphore keycloakPermits;
+    private final Counter createdRows;
+    private final Counter failedRows;
+    private final Timer chunkTimer;
+
+    public UserImportServiceImpl(DatabaseService databaseService,
+                                 IndexingService indexingService,
+                                 KeycloakUserService keycloakUserService,
+                                 UserSecretService userSecretService,
+                                 GenericMongoRepository<KeycloakUserModel> keycloakUserRepository,
+                                 Validator validator,
+                                 ObjectMapper objectMapper,
+                                 @Qualifier(ConcurrencyConfig.VIRTUAL_THREAD_EXECUTOR) ExecutorService executor,
+                                 MeterRegistry meterRegistry,
+                                 MongoTenantProperties mongoTenantProperties) {
+        this.databaseService = databaseService;
+        this.indexingService = indexingService;
+        this.keycloakUserService = keycloakUserService;
+        this.userSecretService = userSecretService;
+        this.keycloakUserRepository = keycloakUserRepository;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.csvMapper = CsvMapper.builder()
+                .findAndAddModules()
+                .enable(CsvParser.Feature.TRIM_SPACES)
+                .enable(CsvParser.Feature.SKIP_EMPTY_LINES)
+                .build();
+        this.executor = executor;
+        this.properties = mongoTenantProperties.getUserImport();
+        this.reservation = mongoTenantProperties.getReservation();
+        this.keycloakPermits = new Semaphore(Math.max(1, properties.getKeycloakConcurrency()));
+        this.createdRows = Counter.builder(METRIC_ROWS)
+                .description("Imported rows by result")
+                .tag("result", "created")
+                .register(meterRegistry);
+        this.failedRows = Counter.builder(METRIC_ROWS)
+                .description("Imported rows by result")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("user.import.chunk")
+                .description("Time to import one chunk of rows")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ImportJob createJob(String tenant, ExportFormat format) {
+        requireTenant(tenant);
+        MongoTemplate mongoTemplate = databaseService.changeDatabaseAndGetNewMongoTemplate(tenant);
+
+        ImportJob job = new ImportJob();
+        job.setId(String.valueOf(SnowflakeIdGeneratorUtil.generateId()));
+        job.setFormat(format == null ? ExportFormat.CSV : format);
+        job.setStatus(ImportJobStatus.PENDING);
+        job.setCreatedAt(Instant.now());
+        job.setUpdatedAt(job.getCreatedAt());
+        mongoTemplate.insert(job);
+
+        log.info("import job created — tenant='{}', jobId='{}', format={}", tenant, job.getId(), job.getFormat());
+        return job;
+    }
+
+    @Override
+    public ImportJob getJob(String tenant, String jobId) {
+        requireTenant(tenant);
+        ImportJob job = databaseService.changeDatabaseAndGetNewMongoTemplate(tenant).findById(jobId, ImportJob.class);
+        if (job == null) {
+            throw new IllegalArgumentException(ExecutionKeys.IMPORT_JOB_NOT_FOUND);
+        }
+        return job;
+    }
+
+    @Override
+    public ImportJob runJob(String tenant, String jobId, InputStream input) {
+        requireTenant(tenant);
+        MongoTemplate mongoTemplate = databaseService.changeDatabaseAndGetNewMongoTemplate(tenant);
+
+        ImportJob job = claim(mongoTemplate, jobId);
+        if (job.getStatus() == ImportJobStatus.COMPLETED) {
+            return job;
+        }
+        log.info("import job started — tenant='{}', jobId='{}', format={}, resumeAfterRow={}",
+                tenant, jobId, job.getFormat(), job.getProcessedRows());
+
+        long row = 0;
+        try (MappingIterator<Map<String, Object>> rows = openRows(input, job.getFormat())) {
+            Set<Long> finishedRows = recoverPendingRows(tenant, mongoTemplate, job);
+            save(mongoTemplate, job);
+
+            List<SourceRow> chunk = new ArrayList<>(properties.getChunkSize());
+            while (rows.hasNextValue()) {
+                Map<String, Object> values = rows.nextValue();
+                row++;
+                if (row <= job.getProcessedRows() || finishedRows.contains(row)) {
+                    continue;
+                }
+                chunk.add(new SourceRow(row, values));
+                if (chunk.size() >= properties.getChunkSize()) {
+                    importChunk(tenant, mongoTemplate, job, chunk, row);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(tenant, mongoTemplate, job, chunk, row);
+            }
+
+            job.setProcessedRows(Math.max(job.getProcessedRows(), row));
+            job.setPendingRows(new ArrayList<>());
+            job.setStatus(ImportJobStatus.COMPLETED);
+            job.setCompletedAt(Instant.now());
+            job.setLastError(null);
+        } catch (IOException | RuntimeException ex) {
+            // pendingRows stay on the job: the next run finishes or undoes them
+            log.error("import job failed — tenant='{}', jobId='{}', row={}, error={}",
+                    tenant, jobId, row, ex.getMessage(), ex);
+            job.setStatus(ImportJobStatus.FAILED);
+            job.setLastError(ex.getMessage());
+        }
+
+        save(mongoTemplate, job);
+        log.info("import job finished — tenant='{}', jobId='{}', status={}, rows={}, created={}, failed={}",
+                tenant, jobId, job.getStatus(), job.getProcessedRows(), job.getCreatedUsers(), job.getFailedRows());
+        return job;
+    }
+
+    /* ============================================================
+       Chunk pipeline
+       ============================================================ */
+
+    private void importChunk(String tenant, MongoTemplate mongoTemplate, ImportJob job, List<SourceRow> rows, long lastRow) {
+        chunkTimer.record(() -> {
+            List<Candidate> candidates = rejectUnknownStudios(tenant, job, readCandidates(job, rows));
+            candidates = rejectDuplicatesInChunk(job, candidates);
+            candidates = rejectTaken(job, candidates,
+                    indexingService.findExistingValues(tenant, null, identifiersOf(candidates)));
+            candidates = reserve(tenant, job, candidates);
+
+            // rows a recovery finished stay recorded until processedRows passes them
+            List<ImportPendingRow> finished = finishedAfter(job, job.getProcessedRows());
+            job.setPendingRows(Stream.concat(finished.stream(), candidates.stream()
+                            .map(c -> new ImportPendingRow(c.row, c.user.getId(), c.user.getUsername(), null, c.identifiers, false)))
+                    .toList());
+            save(mongoTemplate, job);
+
+            List<Candidate> created = createInKeycloak(tenant, job, candidates);
+            job.setPendingRows(Stream.concat(finished.stream(), created.stream()
+                            .map(c -> new ImportPendingRow(c.row, c.user.getId(), c.user.getUsername(), c.keycloakUserId, c.identifiers, false)))
+                    .toList());
+            save(mongoTemplate, job);
+
+            List<Candidate> persisted = persist(tenant, job, created);
+            persisted = confirm(tenant, job, persisted);
+            job.setCreatedUsers(job.getCreatedUsers() + persisted.size());
+            createdRows.increment(persisted.size());
+
+            job.setProcessedRows(lastRow);
+            job.setPendingRows(new ArrayList<>(finishedAfter(job, lastRow)));
+            save(mongoTemplate, job);
+            log.info("import chunk done — tenant='{}', jobId='{}', rows={}, created={}, processedRows={}",
+                    tenant, job.getId(), rows.size(), persisted.size(), lastRow);
+        });
+    }
+
+    private List<Candidate> readCandidates(ImportJob job, List<SourceRow> rows) {
+        List<Candidate> candidates = new ArrayList<>(rows.size());
+        for (SourceRow row : rows) {
+            KeycloakUserModel user;
+            List<String> studioIds;
+            try {
+                Map<String, Object> values = new HashMap<>(row.values());
+                values.values().removeIf(value -> value == null || (value instanceof String text && text.isBlank()));
+                studioIds = studioIdsOf(values.remove(COLUMN_STUDIO_IDS));
+                user = objectMapper.convertValue(values, KeycloakUserModel.class);
+            } catch (IllegalArgumentException ex) {
+                rowError(job, row.number(), null, ExecutionKeys.IMPORT_ROW_UNREADABLE + ": " + ex.getMessage());
+                continue;
+            }
+
+            Set<ConstraintViolation<KeycloakUserModel>> violations = validator.validate(user);
+            if (!violations.isEmpty()) {
+                String message = violations.stream()
+                        .min(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                        .map(ConstraintViolation::getMessage)
+                        .orElseThrow();
+                rowError(job, row.number(), user.getId(), message);
+                continue;
+            }
+
+            if (user.getId() == null || user.getId().isBlank()) {
+                user.setId(String.valueOf(SnowflakeIdGeneratorUtil.generateId()));
+            }
+            candidates.add(new Candidate(row.number(), user,
+                    UserAccountServiceImpl.identifiersOf(user.getId(), user.getEmail(), user.getPhone()), studioIds));
+        }
+        return candidates;
+    }
+
+    /**
+     * A list (NDJSON) or a ';' / ',' separated cell (CSV).
+     */
+    private static List<String> studioIdsOf(Object column) {
+        if (column == null) {
+            return List.of();
+        }
+        Stream<?> values = column instanceof Collection<?> collection
+                ? collection.stream()
+                : STUDIO_ID_SEPARATOR.splitAsStream(column.toString());
+        return values
+                .filter(Objects::nonNull)
+                .map(value -> value.toString().trim())
+                .filter(value -> !value.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * One findMissingIds over the studios referenced by the whole chunk; rows naming a missing one are rejected.
+     */
+    private List<Candidate> rejectUnknownStudios(String tenant, ImportJob job, List<Candidate> candidates) {
+        Set<String> referenced = new LinkedHashSet<>();
+        candidates.forEach(candidate -> referenced.addAll(candidate.studioIds));
+        if (referenced.isEmpty()) {
+            return candidates;
+        }
+
+        Set<String> missing = indexingService.findMissingIds(tenant, null, referenced, MongoDBConstants.COLLECTION_STUDIOS);
+        if (missing.isEmpty()) {
+            return candidates;
+        }
+        List<Candidate> kept = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            String unknown = candidate.studioIds.stream().filter(missing::contains).findFirst().orElse(null);
+            if (unknown != null) {
+                rowError(job, candidate.row, candidate.user.getId(), ExecutionKeys.STUDIO_NOT_FOUND + ": " + unknown);
+            } else {
+                kept.add(candidate);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * The first row using a value keeps it; later rows of the chunk using it again are rejected.
+     */
+    private List<Candidate> rejectDuplicatesInChunk(ImportJob job, List<Candidate> candidates) {
+        Map<String, Set<String>> seen = new HashMap<>();
+        List<Candidate> kept = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            String repeated = firstCollision(candidate, seen);
+            if (repeated != null) {
+                rowError(job, candidate.row, candidate.user.getId(), ExecutionKeys.IMPORT_DUPLICATE_IN_FILE + ": " + repeated);
+                continue;
+            }
+            candidate.identifiers.forEach((collection, values) ->
+                    seen.computeIfAbsent(collection, c -> new HashSet<>()).addAll(values));
+            kept.add(candidate);
+        }
+        return kept;
+    }
+
+    private List<Candidate> rejectTaken(ImportJob job, List<Candidate> candidates, Map<String, Set<String>> taken) {
+        if (taken.isEmpty()) {
+            return candidates;
+        }
+        List<Candidate> kept = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            String collision = firstCollision(candidate, taken);
+            if (collision != null) {
+                rowError(job, candidate.row, candidate.user.getId(), alreadyExistsKey(collision));
+            } else {
+                kept.add(candidate);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Reserve everything in one round trip; values registered since the existence check reject their rows,
+     * and the rest is reserved again (every retry has fewer rows).
+     */
+    private List<Candidate> reserve(String tenant, ImportJob job, List<Candidate> candidates) {
+        List<Candidate> remaining = candidates;
+        while (!remaining.isEmpty()) {
+            Map<String, Set<String>> collided =
+                    indexingService.reserveValues(tenant, null, job.getId(), identifiersOf(remaining), reservation.getTtl());
+            if (collided.isEmpty()) {
+                return remaining;
+            }
+            List<Candidate> kept = rejectTaken(job, remaining, collided);
+            if (kept.size() == remaining.size()) {
+                throw new IllegalStateException("reservation collided on values outside the chunk: " + collided);
+            }
+            remaining = kept;
+        }
+        return remaining;
+    }
+
+    /**
+     * One bulk Keycloak create (realm partial import, hundreds of users per call) holding one of the node-wide
+     * permits. Returns the rows created; the others are row errors and their reservations are released.
+     */
+    private List<Candidate> createInKeycloak(String tenant, ImportJob job, List<Candidate> candidates) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        KeycloakBulkCreateResult result;
+        keycloakPermits.acquireUninterruptibly();
+        try {
+            result = keycloakUserService.createUsers(tenant, candidates.stream().map(c -> c.user).toList());
+        } finally {
+            keycloakPermits.release();
+        }
+
+        List<Candidate> created = new ArrayList<>(candidates.size());
+        List<Candidate> failed = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            candidate.keycloakUserId = result.created().get(candidate.user.getId());
+            if (candidate.keycloakUserId != null) {
+                created.add(candidate);
+            } else {
+                candidate.error = ExecutionKeys.IMPORT_KEYCLOAK_FAILED + ": "
+                        + result.failed().getOrDefault(candidate.user.getId(), "not created");
+                failed.add(candidate);
+            }
+        }
+        discard(tenant, job, failed);
+        return created;
+    }
+
+    /**
+     * Users first (createAll), then the secrets of the users inserted. Rows that did not make it through both
+     * are undone: user document deleted, Keycloak user deleted, reservations released.
+     */
+    private List<Candidate> persist(String tenant, ImportJob job, List<Candidate> created) {
+        if (created.isEmpty()) {
+            return created;
+        }
+        BulkInsertResult users = keycloakUserRepository.createAll(
+                created.stream().map(c -> c.user).toList(),
+                tenant,
+                BulkInsertOptions.builder().ordered(false).batchSize(properties.getChunkSize()).build());
+
+        List<Candidate> inserted = new ArrayList<>(created.size());
+        List<Candidate> failed = new ArrayList<>();
+        for (BulkItemResult item : users.getItems()) {
+            Candidate candidate = created.get(item.index());
+            if (item.status() == BulkItemStatus.INSERTED) {
+                inserted.add(candidate);
+            } else {
+                candidate.error = ExecutionKeys.IMPORT_PERSIST_FAILED + ": " + item.error();
+                failed.add(candidate);
+            }
+        }
+
+        Set<String> secretsFailed = userSecretService.saveAll(
+                inserted.stream().map(c -> new UserSecrets(c.user.getId(), c.keycloakUserId)).toList(), tenant, null);
+        List<Candidate> persisted = new ArrayList<>(inserted.size());
+        for (Candidate candidate : inserted) {
+            if (secretsFailed.contains(candidate.user.getId())) {
+                candidate.error = ExecutionKeys.IMPORT_PERSIST_FAILED + ": user secrets not saved";
+                keycloakUserRepository.delete(candidate.user.getId(), tenant);
+                failed.add(candidate);
+            } else {
+                persisted.add(candidate);
+            }
+        }
+
+        forEachBounded(failed, candidate -> deleteKeycloakUser(tenant, candidate.keycloakUserId));
+        discard(tenant, job, failed);
+        return persisted;
+    }
+
+    /**
+     * Confirm the chunk's reservations (all owned by the job). When a value turned out to be held by someone
+     * else (its reservation lapsed and was taken over), the rows are confirmed one by one and those that lost a
+     * value are undone like a failed write.
+     */
+    private List<Candidate> confirm(String tenant, ImportJob job, List<Candidate> persisted) {
+        try {
+            indexingService.confirmValues(tenant, null, job.getId(), identifiersOf(persisted));
+            return persisted;
+        } catch (DuplicateKeyException ex) {
+            log.warn("import chunk confirmation collided — tenant='{}', jobId='{}': confirming row by row",
+                    tenant, job.getId());
+        }
+
+        List<Candidate> confirmed = new ArrayList<>(persisted.size());
+        List<Candidate> lost = new ArrayList<>();
+        for (Candidate candidate : persisted) {
+            try {
+                indexingService.confirmValues(tenant, null, job.getId(), candidate.identifiers);
+                confirmed.add(candidate);
+            } catch (DuplicateKeyException ex) {
+                candidate.error = ExecutionKeys.IMPORT_PERSIST_FAILED + ": " + ex.getMessage();
+                userSecretService.deleteById(candidate.user.getId(), tenant, null);
+                keycloakUserRepository.delete(candidate.user.getId(), tenant);
+                lost.add(candidate);
+            }
+        }
+        forEachBounded(lost, candidate -> deleteKeycloakUser(tenant, candidate.keycloakUserId));
+        discard(tenant, job, lost);
+        return confirmed;
+    }
+
+    /**
+     * Rows of an interrupted chunk: those whose user and secrets were both written are finished (their
+     * identifiers confirmed, counted as created, and kept on the job marked finished so every run skips them
+     * until processedRows passes them); the others, and finished rows whose values someone else took over
+     * meanwhile, are undone and imported again.
+     *
+     * @return the rows to skip
+     */
+    private Set<Long> recoverPendingRows(String tenant, MongoTemplate mongoTemplate, ImportJob job) {
+        List<ImportPendingRow> pending = job.getPendingRows();
+        if (pending == null || pending.isEmpty()) {
+            return Set.of();
+        }
+
+        List<ImportPendingRow> finished = new ArrayList<>(finishedAfter(job, job.getProcessedRows()));
+        List<ImportPendingRow> interrupted = pending.stream().filter(row -> !row.finished()).toList();
+        List<ImportPendingRow> recovered = interrupted.isEmpty()
+                ? List.of()
+                : recoverInterruptedRows(tenant, mongoTemplate, job, interrupted);
+        recovered.forEach(row -> finished.add(row.asFinished()));
+
+        job.setCreatedUsers(job.getCreatedUsers() + recovered.size());
+        job.setPendingRows(finished);
+        log.info("import job recovered interrupted chunk — tenant='{}', jobId='{}', finished={}, undone={}",
+                tenant, job.getId(), recovered.size(), interrupted.size() - recovered.size());
+
+        Set<Long> rows = new HashSet<>();
+        finished.forEach(row -> rows.add(row.row()));
+        return rows;
+    }
+
+    /**
+     * @return the rows written completely and now confirmed
+     */
+    private List<ImportPendingRow> recoverInterruptedRows(String tenant, MongoTemplate mongoTemplate, ImportJob job,
+                                                          List<ImportPendingRow> pending) {
+        List<ImportPendingRow> interrupted = resolveKeycloakUsers(tenant, pending);
+        List<String> ids = interrupted.stream().map(ImportPendingRow::userId).toList();
+        Set<String> missingUsers = indexingService.findMissingIds(tenant, mongoTemplate, ids, MongoDBConstants.COLLECTION_USERS);
+        Set<String> missingSecrets = indexingService.findMissingIds(tenant, mongoTemplate, ids, MongoDBConstants.COLLECTION_USER_SECRETS);
+
+        List<ImportPendingRow> written = new ArrayList<>();
+        Map<String, List<String>> confirm = new LinkedHashMap<>();
+        Map<String, List<String>> release = new LinkedHashMap<>();
+        for (ImportPendingRow row : interrupted) {
+            boolean userWritten = !missingUsers.contains(row.userId());
+            boolean secretsWritten = !missingSecrets.contains(row.userId());
+            if (row.keycloakUserId() != null && userWritten && secretsWritten) {
+                written.add(row);
+                merge(confirm, row.identifiers());
+                continue;
+            }
+            undo(tenant, mongoTemplate, row, secretsWritten, userWritten);
+            merge(release, row.identifiers());
+        }
+
+        List<ImportPendingRow> confirmed = written;
+        try {
+            indexingService.confirmValues(tenant, null, job.getId(), confirm);
+        } catch (DuplicateKeyException ex) {
+            confirmed = new ArrayList<>(written.size());
+            for (ImportPendingRow row : written) {
+                try {
+                    indexingService.confirmValues(tenant, null, job.getId(), row.identifiers());
+                    confirmed.add(row);
+                } catch (DuplicateKeyException lost) {
+                    undo(tenant, mongoTemplate, row, true, true);
+                    merge(release, row.identifiers());
+                }
+            }
+        }
+        indexingService.releaseValues(tenant, null, job.getId(), release);
+        return confirmed;
+    }
+
+    /**
+     * Rows saved before their Keycloak create returned carry no Keycloak id, yet the create may have gone through
+     * before the interruption. Look those users up by username so they are deleted with the rest of the row:
+     * re-imported, Keycloak would skip the existing username and the row would fail with its user orphaned.
+     * A user whose email is not the row's is someone else's and is left alone.
+     */
+    private List<ImportPendingRow> resolveKeycloakUsers(String tenant, List<ImportPendingRow> rows) {
+        List<ImportPendingRow> unknown = rows.stream()
+                .filter(row -> row.keycloakUserId() == null && row.username() != null)
+                .toList();
+        if (unknown.isEmpty()) {
+            return rows;
+        }
+
+        Map<Long, String> found = new ConcurrentHashMap<>();
+        forEachBounded(unknown, row -> {
+            String keycloakUserId = findKeycloakUserId(tenant, row);
+            if (keycloakUserId != null) {
+                found.put(row.row(), keycloakUserId);
+            }
+        });
+        log.info("import recovery resolved Keycloak users by username — tenant='{}', looked up={}, found={}",
+                tenant, unknown.size(), found.size());
+        return rows.stream()
+                .map(row -> found.containsKey(row.row()) ? row.withKeycloakUserId(found.get(row.row())) : row)
+                .toList();
+    }
+
+    private String findKeycloakUserId(String tenant, ImportPendingRow row) {
+        List<String> emails = row.identifiers().getOrDefault(MongoDBConstants.INDEX_EMAILS, List.of());
+        return keycloakUserService.findByUsername(tenant, row.username(), 0, USERNAME_LOOKUP_MAX).stream()
+                .filter(user -> row.username().equalsIgnoreCase(user.getUsername()))
+                .filter(user -> user.getEmail() == null
+                        ? emails.isEmpty()
+                        : emails.stream().anyMatch(user.getEmail()::equalsIgnoreCase))
+                .map(UserRepresentation::getId)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static List<ImportPendingRow> finishedAfter(ImportJob job, long processedRows) {
+        return job.getPendingRows() == null ? List.of() : job.getPendingRows().stream()
+                .filter(row -> row.finished() && row.row() > processedRows)
+                .toList();
+    }
+
+    private void undo(String tenant, MongoTemplate mongoTemplate, ImportPendingRow row, boolean secretsWritten, boolean userWritten) {
+        if (secretsWritten) userSecretService.deleteById(row.userId(), tenant, mongoTemplate);
+        if (userWritten) keycloakUserRepository.delete(row.userId(), tenant);
+        if (row.keycloakUserId() != null) deleteKeycloakUser(tenant, row.keycloakUserId());
+    }
+
+    /* ============================================================
+       Internals
+       ============================================================ */
+
+    /**
+     * Atomically take over a job that is not COMPLETED and not running elsewhere (RUNNING and recently updated).
+     */
+    private ImportJob claim(MongoTemplate mongoTemplate, String jobId) {
+        Instant now = Instant.now();
+        Query claimable = new Query(Criteria.where(MongoDBConstants.FIELD_ID).is(jobId)
+                .orOperator(
+                        Criteria.where(FIELD_STATUS).in(ImportJobStatus.PENDING, ImportJobStatus.FAILED),
+                        Criteria.where(FIELD_STATUS).is(ImportJobStatus.RUNNING)
+                                .and(FIELD_UPDATED_AT).lt(now.minus(properties.getStaleAfter()))));
+        Update running = new Update()
+                .set(FIELD_STATUS, ImportJobStatus.RUNNING)
+                .set(FIELD_UPDATED_AT, now);
+
+        ImportJob job = mongoTemplate.findAndModify(claimable, running, FindAndModifyOptions.options().returnNew(true), ImportJob.class);
+        if (job != null) {
+            return job;
+        }
+        ImportJob existing = mongoTemplate.findById(jobId, ImportJob.class);
+        if (existing == null) {
+            throw new IllegalArgumentException(ExecutionKeys.IMPORT_JOB_NOT_FOUND);
+        }
+        if (existing.getStatus() == ImportJobStatus.COMPLETED) {
+            return existing;
+        }
+        throw new IllegalArgumentException(ExecutionKeys.IMPORT_JOB_IN_PROGRESS);
+    }
+
+    private MappingIterator<Map<String, Object>> openRows(InputStream input, ExportFormat format) throws IOException {
+        if (format == ExportFormat.CSV) {
+            return csvMapper.readerFor(ROW_TYPE)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .readValues(input);
+        }
+        return objectMapper.readerFor(ROW_TYPE).readValues(input);
+    }
+
+    private <T> void forEachBounded(List<T> items, Consumer<T> call) {
+        CompletableFuture<?>[] calls = items.stream()
+                .map(item -> CompletableFuture.runAsync(() -> {
+                    keycloakPermits.acquireUninterruptibly();
+                    try {
+                        call.accept(item);
+                    } finally {
+                        keycloakPermits.release();
+                    }
+                }, executor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(calls).join();
+    }
+
+    private void deleteKeycloakUser(String tenant, String keycloakUserId) {
+        try {
+            keycloakUserService.deleteUser(tenant, keycloakUserId);
+        } catch (RuntimeException ex) {
+            log.error("import compensation failed — tenant='{}', keycloakId='{}' is orphaned in Keycloak: {}",
+                    tenant, keycloakUserId, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Record the rows' errors and release their reservations.
+     */
+    private void discard(String tenant, ImportJob job, List<Candidate> rejected) {
+        if (rejected.isEmpty()) {
+            return;
+        }
+        for (Candidate candidate : rejected) {
+            rowError(job, candidate.row, candidate.user.getId(), candidate.error);
+        }
+        indexingService.releaseValues(tenant, null, job.getId(), identifiersOf(rejected));
+    }
+
+    private void rowError(ImportJob job, long row, String userId, String error) {
+        job.setFailedRows(job.getFailedRows() + 1);
+        if (job.getErrors().size() < properties.getMaxRowErrors()) {
+            job.getErrors().add(new ImportRowError(row, userId, error));
+        }
+        failedRows.increment();
+    }
+
+    private static void save(MongoTemplate mongoTemplate, ImportJob job) {
+        job.setUpdatedAt(Instant.now());
+        mongoTemplate.save(job);
+    }
+
+    private static String firstCollision(Candidate candidate, Map<String, Set<String>> values) {
+        for (Map.Entry<String, List<String>> entry : candidate.identifiers.entrySet()) {
+            Set<String> used = values.get(entry.getKey());
+            if (used != null && entry.getValue().stream().anyMatch(used::contains)) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static String alreadyExistsKey(String indexCollection) {
+        return switch (indexCollection) {
+            case MongoDBConstants.INDEX_UIDS -> ExecutionKeys.USER_ID_ALREADY_EXISTS;
+            case MongoDBConstants.INDEX_EMAILS -> ExecutionKeys.EMAIL_ALREADY_EXISTS;
+            case MongoDBConstants.INDEX_MOBILES -> ExecutionKeys.PHONE_ALREADY_EXISTS;
+            default -> ExecutionKeys.IMPORT_DUPLICATE_IN_FILE;
+        };
+    }
+
+    private static Map<String, List<String>> identifiersOf(List<Candidate> candidates) {
+        Map<String, List<String>> all = new LinkedHashMap<>();
+        for (Candidate candidate : candidates) {
+            merge(all, candidate.identifiers);
+        }
+        return all;
+    }
+
+    private static void merge(Map<String, List<String>> into, Map<String, List<String>> values) {
+        values.forEach((collection, list) -> into.computeIfAbsent(collection, c -> new ArrayList<>()).addAll(list));
+    }
+
+    private static void requireTenant(String tenant) {
+        if (tenant == null || tenant.isBlank()) throw new IllegalArgumentException(ExecutionKeys.REALM_REQUIRED);
+    }
+
+    private record SourceRow(long number, Map<String, Object> values) {
+    }
+
+    /**
+     * A row that passed validation; keycloakUserId / error are filled in as the chunk is written.
+     */
+    private static final class Candidate {
+        private final long row;
+        private final KeycloakUserModel user;
+        private final Map<String, List<String>> identifiers;
+        private final List<String> studioIds;
+        private volatile String keycloakUserId;
+        private volatile String error;
+
+        private Candidate(long row, KeycloakUserModel user, Map<String, List<String>> identifiers, List<String> studioIds) {
+            this.row = row;
+            this.user = user;
+            this.identifiers = identifiers;
+            this.studioIds = studioIds;
+        }
+    }
+}
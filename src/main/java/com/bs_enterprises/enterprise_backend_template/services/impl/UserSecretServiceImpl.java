@@ -6,7 +6,10 @@ import com.bs_enterprises.enterprise_backend_template.services.DatabaseService;
 import com.bs_enterprises.enterprise_backend_template.services.UserSecretService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import com.mongodb.bulk.BulkWriteError;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -14,6 +17,12 @@ import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -40,6 +49,30 @@ public class UserSecretServiceImpl implements UserSecretService {
         }
     }
 
+    @Override
+    public Set<String> saveAll(Collection<UserSecrets> userSecrets, String tenant, MongoTemplate optionalMongoTemplate) {
+        if (userSecrets == null || userSecrets.isEmpty()) {
+            return Set.of();
+        }
+        MongoTemplate mongoTemplate = optionalMongoTemplate;
+        if (optionalMongoTemplate == null) {
+            mongoTemplate = databaseService.changeDatabaseAndGetNewMongoTemplate(tenant);
+        }
+        List<UserSecrets> items = new ArrayList<>(userSecrets);
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserSecrets.class).insert(items).execute();
+            log.info("🔐 {} UserSecrets saved", items.size());
+            return Set.of();
+        } catch (BulkOperationException e) {
+            Set<String> failed = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                failed.add(items.get(error.getIndex()).getId());
+            }
+            log.warn("⚠️ {} of {} UserSecrets not saved: {}", failed.size(), items.size(), e.getMessage());
+            return failed;
+        }
+    }
+
     @Override
     public UserSecrets update(UserSecrets userSecrets, String tenant, MongoTemplate optionalMongoTemplate) {
 
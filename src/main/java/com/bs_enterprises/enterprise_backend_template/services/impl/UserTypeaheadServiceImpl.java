@@ -0,0 +1,240 @@
+package com.bs_enterprises.enterprise_backend_template.services.impl;
+
+import com.bs_enterprises.enterprise_backend_template.config.ConcurrencyConfig;
+import com.bs_enterprises.enterprise_backend_template.config.MongoTenantProperties;
+import com.bs_enterprises.enterprise_backend_template.constants.MongoDBConstants;
+import com.bs_enterprises.enterprise_backend_template.models.queries.FieldProjection;
+import com.bs_enterprises.enterprise_backend_template.models.users.KeycloakUserModel;
+import com.bs_enterprises.enterprise_backend_template.repositories.GenericMongoRepository;
+import com.bs_enterprises.enterprise_backend_template.repositories.RepositoryWriteListener;
+import com.bs_enterprises.enterprise_backend_template.services.DatabaseService;
+import com.bs_enterprises.enterprise_backend_template.services.UserTypeaheadService;
+import com.bs_enterprises.enterprise_backend_template.utils.NgramIndex;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * One {@link NgramIndex} per tenant, kept current through the users repository write hooks.
+ * <p>
+ * Writes with unknown targets (filter-based bulk writes) trigger a background reload. While a reload streams
+ * the collection, incoming writes are applied to the current index and replayed onto the new one before it
+ * is swapped in. Per-node state: writes made by other application instances are only seen after a reload.
+ * A tenant without typeahead queries for the idle timeout drops its index; the next query loads it again.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "properties.mongodb.typeahead", name = "enabled", havingValue = "true")
+public class UserTypeaheadServiceImpl implements UserTypeaheadService, RepositoryWriteListener<KeycloakUserModel> {
+
+    private static final List<String> FIELDS = List.of("firstName", "lastName", "email", "phone");
+    private static final FieldProjection PROJECTION = FieldProjection.include(FIELDS.toArray(String[]::new));
+    private static final Set<String> SYSTEM_DATABASES = Set.of("admin", "local", "config");
+
+    private final GenericMongoRepository<KeycloakUserModel> keycloakUserRepository;
+    private final DatabaseService databaseService;
+    private final ExecutorService executor;
+    private final MongoTenantProperties.Typeahead properties;
+
+    private final Cache<String, TenantIndex> tenants;
+
+    private static final class TenantIndex {
+        private volatile NgramIndex index;                  // null until the first load completes
+        private final Queue<Consumer<NgramIndex>> replay = new ConcurrentLinkedQueue<>();
+        private CompletableFuture<Void> loading;            // guarded by this
+    }
+
+    public UserTypeaheadServiceImpl(GenericMongoRepository<KeycloakUserModel> keycloakUserRepository,
+                                    DatabaseService databaseService,
+                                    @Qualifier(ConcurrencyConfig.VIRTUAL_THREAD_EXECUTOR) ExecutorService executor,
+                                    MongoTenantProperties mongoTenantProperties) {
+        this.keycloakUserRepository = keycloakUserRepository;
+        this.databaseService = databaseService;
+        this.executor = executor;
+        this.properties = mongoTenantProperties.getTypeahead();
+        this.tenants = Caffeine.newBuilder()
+                .expireAfterAccess(properties.getIdleTimeout())
+                .build();
+    }
+
+    @PostConstruct
+    void registerWriteListener() {
+        keycloakUserRepository.addWriteListener(this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAllOnStartup() {
+        if (properties.isRebuildOnStartup()) {
+            executor.submit(this::loadAllTenants);
+        }
+    }
+
+    /**
+     * At most startup-concurrency tenants at a time: building a tenant's template also starts its index
+     * provisioning, so the next database is only opened once a load slot is free.
+     */
+    private void loadAllTenants() {
+        Semaphore slots = new Semaphore(Math.max(1, properties.getStartupConcurrency()));
+        for (String database : databaseService.listAllDatabases()) {
+            if (SYSTEM_DATABASES.contains(database)) {
+                continue;
+            }
+            slots.acquireUninterruptibly();
+            try {
+                if (databaseService.changeDatabaseAndGetNewMongoTemplate(database).collectionExists(MongoDBConstants.COLLECTION_USERS)) {
+                    rebuild(database).whenComplete((ignored, ex) -> slots.release());
+                } else {
+                    slots.release();
+                }
+            } catch (Exception ex) {
+                slots.release();
+                log.error("typeahead startup load failed — tenant='{}', error={}", database, ex.getMessage(), ex);
+            }
+        }
+    }
+
+    @Override
+    public List<String> suggestIds(String realmName, String text, int limit) {
+        int safeLimit = Math.min(Math.max(1, limit), properties.getMaxResults());
+        return loadedIndex(realmName).search(text, safeLimit);
+    }
+
+    @Override
+    public List<KeycloakUserModel> suggest(String realmName, String text, int limit) {
+        List<String> ids = suggestIds(realmName, text, limit);
+        return ids.isEmpty() ? List.of() : keycloakUserRepository.getByIds(ids, realmName);
+    }
+
+    @Override
+    public CompletableFuture<Void> rebuild(String realmName) {
+        return rebuild(realmName, tenants.get(realmName, tenant -> new TenantIndex()));
+    }
+
+    private CompletableFuture<Void> rebuild(String realmName, TenantIndex state) {
+        synchronized (state) {
+            if (state.loading != null && !state.loading.isDone()) {
+                return state.loading;
+            }
+            state.replay.clear();
+            state.loading = CompletableFuture.runAsync(() -> load(realmName, state), executor);
+            return state.loading;
+        }
+    }
+
+    /* ============================================================
+       Repository write hooks
+       ============================================================ */
+
+    @Override
+    public void onCreated(String tenant, KeycloakUserModel user) {
+        Map<String, Object> fields = fieldsOf(user);
+        applyWrite(tenant, index -> index.put(user.getId(), fields));
+    }
+
+    @Override
+    public void onUpdated(String tenant, String id, Map<String, Object> appliedUpdates) {
+        Map<String, Object> changed = new HashMap<>();
+        FIELDS.forEach(field -> {
+            if (appliedUpdates.containsKey(field)) {
+                changed.put(field, appliedUpdates.get(field));
+            }
+        });
+        if (!changed.isEmpty()) {
+            applyWrite(tenant, index -> index.update(id, changed));
+        }
+    }
+
+    @Override
+    public void onDeleted(String tenant, Collection<String> ids) {
+        List<String> removed = List.copyOf(ids);
+        applyWrite(tenant, index -> removed.forEach(index::remove));
+    }
+
+    @Override
+    public void onBulkChange(String tenant) {
+        TenantIndex state = tenants.policy().getIfPresentQuietly(tenant);
+        if (state != null) {
+            rebuild(tenant, state);
+        }
+    }
+
+    /* ============================================================
+       Internals
+       ============================================================ */
+
+    private NgramIndex loadedIndex(String realmName) {
+        TenantIndex state = tenants.get(realmName, tenant -> new TenantIndex());
+        NgramIndex index = state.index;
+        if (index != null) {
+            return index;
+        }
+        rebuild(realmName, state).join(); // first query of a tenant waits for its load
+        return state.index;
+    }
+
+    private void applyWrite(String tenant, Consumer<NgramIndex> write) {
+        // quietly: writes must not keep an otherwise idle tenant's index alive
+        TenantIndex state = tenants.policy().getIfPresentQuietly(tenant);
+        if (state == null) {
+            return; // not loaded yet: the first load reads the write from MongoDB
+        }
+        synchronized (state) {
+            if (state.index != null) {
+                write.accept(state.index);
+            }
+            if (state.loading != null && !state.loading.isDone()) {
+                state.replay.add(write);
+            }
+        }
+    }
+
+    private void load(String realmName, TenantIndex state) {
+        long started = System.nanoTime();
+        NgramIndex fresh = new NgramIndex(properties.getGramSize());
+
+        try (Stream<KeycloakUserModel> users = keycloakUserRepository.stream(Map.of(), PROJECTION, realmName)) {
+            users.forEach(user -> fresh.put(user.getId(), fieldsOf(user)));
+        } catch (Exception ex) {
+            log.error("typeahead load failed — tenant='{}', error={}", realmName, ex.getMessage(), ex);
+            throw ex;
+        }
+
+        synchronized (state) {
+            for (Consumer<NgramIndex> write; (write = state.replay.poll()) != null; ) {
+                write.accept(fresh);
+            }
+            state.index = fresh;
+        }
+
+        log.info("typeahead index loaded — tenant='{}', users={}, tookMs={}",
+                realmName, fresh.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static Map<String, Object> fieldsOf(KeycloakUserModel user) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("firstName", user.getFirstName());
+        fields.put("lastName", user.getLastName());
+        fields.put("email", user.getEmail());
+        fields.put("phone", user.getPhone());
+        return fields;
+    }
+}
@@ -0,0 +1,51 @@
+package com.bs_enterprises.enterprise_backend_template.utils;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A searchParams shape compiled by {@link QueryBuilderUtil#compile}: the Criteria structure and sort are fixed,
+ * only the values are read from the parameters on {@link #bind}.
+ * Immutable and thread-safe; every bind returns a new, mutable Query.
+ */
+public final class CompiledQuery {
+
+    @FunctionalInterface
+    interface Binder {
+        Criteria bind(Map<String, Object> searchParams);
+    }
+
+    private final List<Binder> binders;
+    private final Sort sort;
+
+    CompiledQuery(List<Binder> binders, Sort sort) {
+        this.binders = List.copyOf(binders);
+        this.sort = sort;
+    }
+
+    /**
+     * Build the query for parameters of the same shape this plan was compiled from.
+     */
+    public Query bind(Map<String, Object> searchParams) {
+        Criteria criteria;
+        if (binders.isEmpty()) {
+            criteria = new Criteria();
+        } else {
+            Criteria[] bound = new Criteria[binders.size()];
+            for (int i = 0; i < bound.length; i++) {
+                bound[i] = binders.get(i).bind(searchParams);
+            }
+            criteria = new Criteria().andOperator(bound);
+        }
+
+        Query query = Query.query(criteria);
+        if (sort.isSorted()) {
+            query.with(sort);
+        }
+        return query;
+    }
+}
@@ -0,0 +1,44 @@
+package com.bs_enterprises.enterprise_backend_template.utils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonParseException;
+import org.bson.json.JsonWriterSettings;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes keyset scroll positions (sort key values + _id) as opaque, URL-safe cursor tokens.
+ * Values are written as MongoDB extended JSON so dates, ObjectIds and numbers keep their type.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CursorCodec {
+
+    private static final JsonWriterSettings JSON_SETTINGS =
+            JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+
+    public static String encode(KeysetScrollPosition position) {
+        String json = new Document(position.getKeys()).toJson(JSON_SETTINGS);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor token; a null/blank cursor means "start from the first page".
+     */
+    public static KeysetScrollPosition decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return ScrollPosition.forward(Document.parse(json));
+        } catch (IllegalArgumentException | JsonParseException ex) {
+            throw new IllegalArgumentException("Invalid pagination cursor", ex);
+        }
+    }
+}
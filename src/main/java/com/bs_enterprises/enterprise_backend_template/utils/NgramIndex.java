@@ -0,0 +1,313 @@
+package com.bs_enterprises.enterprise_backend_template.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory n-gram index for typeahead over a few short text fields per document.
+ * <p>
+ * Each document gets a dense int number; every key maps to a sorted {@code int[]} posting list of those numbers.
+ * Keys are the n-grams of each normalized field value (substring matching) plus the 1..n-1 character prefixes
+ * of every word (queries shorter than n). Numbers only grow, so postings stay sorted by appending:
+ * an update retires the old number (tombstone) and indexes the document under a new one.
+ * Tombstones are dropped by compacting once they outnumber live documents.
+ * <p>
+ * Thread-safe: queries share a read lock, writes take the write lock.
+ */
+public final class NgramIndex {
+
+    private static final char WORD_PREFIX_MARK = '^';
+    private static final int MIN_COMPACTION_GARBAGE = 1_024;
+
+    private final int gramSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> docByExternalId = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final BitSet live = new BitSet();
+
+    private String[] externalIds = new String[1_024];
+    private Map<String, String>[] fieldsByDoc = newFieldsArray(1_024);
+    private int nextDoc;
+    private int dead;
+
+    public NgramIndex(int gramSize) {
+        if (gramSize < 2) {
+            throw new IllegalArgumentException("gramSize must be at least 2");
+        }
+        this.gramSize = gramSize;
+    }
+
+    /**
+     * Index (or re-index) a document; field values are normalized here, null values are ignored.
+     */
+    public void put(String id, Map<String, ?> fieldValues) {
+        Map<String, String> normalized = new HashMap<>();
+        fieldValues.forEach((field, value) -> {
+            if (value != null) {
+                String text = SearchTextNormalizer.normalize(value.toString());
+                if (!text.isEmpty()) {
+                    normalized.put(field, text);
+                }
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            retire(id);
+            if (!normalized.isEmpty()) {
+                add(id, normalized);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply a partial update to an indexed document (null value = field removed).
+     * Unknown ids are ignored: without the other fields the document cannot be indexed correctly.
+     */
+    public void update(String id, Map<String, ?> changedFields) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docByExternalId.get(id);
+            if (doc == null) {
+                return;
+            }
+            Map<String, Object> merged = new HashMap<>(fieldsByDoc[doc]);
+            merged.putAll(changedFields);
+            merged.values().removeIf(Objects::isNull);
+            put(id, merged); // re-entrant write lock
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            retire(id);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByExternalId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of documents matching every word of the query: some field contains the word (words shorter than
+     * the gram size: some field has a word starting with it). Documents where every query word is a word prefix
+     * come first, so "john do" ranks "John Doe" above "Johnny Redon".
+     */
+    public List<String> search(String query, int limit) {
+        String q = SearchTextNormalizer.normalize(query);
+        if (q == null || q.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        String[] words = q.split(" ");
+
+        lock.readLock().lock();
+        try {
+            Postings[] lists = postingsFor(words);
+            if (lists.length == 0) {
+                return List.of();
+            }
+
+            // walk the shortest list, probe the others; stop as soon as enough best-ranked matches are found
+            Postings driver = lists[0];
+            List<String> prefixMatches = new ArrayList<>(limit);
+            List<String> otherMatches = new ArrayList<>(limit);
+            for (int i = 0; i < driver.size && prefixMatches.size() < limit; i++) {
+                int doc = driver.docs[i];
+                if (!live.get(doc) || !inAll(lists, doc)) {
+                    continue;
+                }
+                int match = 2;
+                for (int w = 0; w < words.length && match > 0; w++) {
+                    match = Math.min(match, match(fieldsByDoc[doc], words[w]));
+                }
+                if (match == 2) {
+                    prefixMatches.add(externalIds[doc]);
+                } else if (match == 1 && otherMatches.size() < limit) {
+                    otherMatches.add(externalIds[doc]);
+                }
+            }
+
+            for (int i = 0; prefixMatches.size() < limit && i < otherMatches.size(); i++) {
+                prefixMatches.add(otherMatches.get(i));
+            }
+            return prefixMatches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* ============================================================
+       Internals (callers hold the lock)
+       ============================================================ */
+
+    /**
+     * Posting lists of every key of every query word, shortest first; empty when some key is unknown.
+     */
+    private Postings[] postingsFor(String[] words) {
+        List<Postings> lists = new ArrayList<>();
+        for (String word : words) {
+            Set<String> keys = word.length() < gramSize ? Set.of(WORD_PREFIX_MARK + word) : grams(word);
+            for (String key : keys) {
+                Postings list = postings.get(key);
+                if (list == null) {
+                    return new Postings[0];
+                }
+                lists.add(list);
+            }
+        }
+        Postings[] sorted = lists.toArray(Postings[]::new);
+        Arrays.sort(sorted, (x, y) -> Integer.compare(x.size, y.size));
+        return sorted;
+    }
+
+    private static boolean inAll(Postings[] lists, int doc) {
+        for (int l = 1; l < lists.length; l++) {
+            if (Arrays.binarySearch(lists[l].docs, 0, lists[l].size, doc) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 2 = a word of some field starts with q, 1 = some field contains q, 0 = no match.
+     */
+    private static int match(Map<String, String> fields, String q) {
+        int best = 0;
+        for (String value : fields.values()) {
+            for (int at = value.indexOf(q); at >= 0; at = value.indexOf(q, at + 1)) {
+                if (at == 0 || !Character.isLetterOrDigit(value.charAt(at - 1))) {
+                    return 2;
+                }
+                best = 1;
+            }
+        }
+        return best;
+    }
+
+    private void add(String id, Map<String, String> fields) {
+        int doc = nextDoc++;
+        ensureCapacity(doc);
+        externalIds[doc] = id;
+        fieldsByDoc[doc] = fields;
+        docByExternalId.put(id, doc);
+        live.set(doc);
+
+        Set<String> keys = new HashSet<>();
+        for (String value : fields.values()) {
+            keys.addAll(grams(value));
+            addWordPrefixes(value, keys);
+        }
+        for (String key : keys) {
+            postings.computeIfAbsent(key, k -> new Postings()).add(doc);
+        }
+    }
+
+    private void retire(String id) {
+        Integer doc = docByExternalId.remove(id);
+        if (doc != null) {
+            live.clear(doc);
+            fieldsByDoc[doc] = null;
+            externalIds[doc] = null;
+            dead++;
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (dead < MIN_COMPACTION_GARBAGE || dead < docByExternalId.size()) {
+            return;
+        }
+
+        String[] oldIds = externalIds;
+        Map<String, String>[] oldFields = fieldsByDoc;
+        int oldNext = nextDoc;
+
+        postings.clear();
+        docByExternalId.clear();
+        live.clear();
+        externalIds = new String[Math.max(1_024, oldNext - dead)];
+        fieldsByDoc = newFieldsArray(externalIds.length);
+        nextDoc = 0;
+        dead = 0;
+
+        for (int doc = 0; doc < oldNext; doc++) {
+            if (oldFields[doc] != null) {
+                add(oldIds[doc], oldFields[doc]);
+            }
+        }
+    }
+
+    private Set<String> grams(String value) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + gramSize <= value.length(); i++) {
+            grams.add(value.substring(i, i + gramSize));
+        }
+        return grams;
+    }
+
+    private void addWordPrefixes(String value, Set<String> keys) {
+        for (int start = 0; start < value.length(); start++) {
+            if (start > 0 && Character.isLetterOrDigit(value.charAt(start - 1))) {
+                continue; // not the start of a word
+            }
+            int end = Math.min(value.length(), start + gramSize - 1);
+            for (int k = start + 1; k <= end; k++) {
+                keys.add(WORD_PREFIX_MARK + value.substring(start, k));
+            }
+        }
+    }
+
+    private void ensureCapacity(int doc) {
+        if (doc >= externalIds.length) {
+            int capacity = externalIds.length * 2;
+            externalIds = Arrays.copyOf(externalIds, capacity);
+            fieldsByDoc = Arrays.copyOf(fieldsByDoc, capacity);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String>[] newFieldsArray(int capacity) {
+        return (Map<String, String>[]) new Map[capacity];
+    }
+
+    /**
+     * Growable, always sorted, primitive posting list.
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size + (size >> 1) + 1);
+            }
+            docs[size++] = doc;
+        }
+    }
+}
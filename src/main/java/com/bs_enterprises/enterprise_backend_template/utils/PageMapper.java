@@ -1,6 +1,8 @@
 package com.bs_enterprises.enterprise_backend_template.utils;
 
+import com.bs_enterprises.enterprise_backend_template.models.paginations.CountMode;
 import com.bs_enterprises.enterprise_backend_template.models.paginations.Pagination;
+import com.bs_enterprises.enterprise_backend_template.services.QueryCountService;
 import lombok.NoArgsConstructor;
 import org.springframework.data.domain.Page;
 
@@ -18,4 +20,16 @@ public final class PageMapper {
         p.setLast(page.isLast());
         return p;
     }
+
+    /**
+     * Same as {@link #toPagination(Page)}, but reports totals as unknown (-1) when the search ran without a count.
+     */
+    public static <T> Pagination<T> toPagination(Page<T> page, CountMode countMode) {
+        Pagination<T> p = toPagination(page);
+        if (countMode == CountMode.NONE) {
+            p.setTotalElements(QueryCountService.UNKNOWN_TOTAL);
+            p.setTotalPages((int) QueryCountService.UNKNOWN_TOTAL);
+        }
+        return p;
+    }
 }
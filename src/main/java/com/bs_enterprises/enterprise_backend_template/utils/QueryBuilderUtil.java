@@ -3,8 +3,12 @@ package com.bs_enterprises.enterprise_backend_template.utils;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.bs_enterprises.enterprise_backend_template.constants.MongoDBConstants;
+import com.bs_enterprises.enterprise_backend_template.models.queries.SearchMode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
+import org.bson.Document;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -21,7 +25,7 @@ import java.util.regex.Pattern;
  * <p>
  * ✅ Supports:
  * - Include / Exclude by IDs
- * - Text search (regex across multiple fields)
+ * - Text search across multiple fields: contains (regex, default), prefix, $text or exact ("searchMode")
  * - AND / OR logical filters
  * - Exact match, IN, and Regex filters
  * - Dynamic date range filtering
@@ -62,6 +66,7 @@ import java.util.regex.Pattern;
  * "notIdsList": ["id3"],
  * "searchText": "keyword",
  * "searchFields": ["name", "email"],
+ * "searchMode": "contains" | "prefix" | "text" | "exact",
  * "filters": {
  * "and": { "status": "ACTIVE" },
  * "or": { "role": ["ADMIN", "MANAGER"], "city": "regex:NY" }
@@ -82,6 +87,11 @@ import java.util.regex.Pattern;
  * - "today": current day
  * - "between": range (requires startDate & endDate)
  * ------------------------------------------------------------
+ * ⚡ Compiled plans:
+ * The structure of searchParams (which keys, filter fields and operators, sort) is its "shape".
+ * Each shape is compiled once into a {@link CompiledQuery} and cached; every call only binds
+ * the current values into it.
+ * ------------------------------------------------------------
  */
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class QueryBuilderUtil {
@@ -93,219 +103,84 @@ public class QueryBuilderUtil {
     public static final String FILTERS = "filters";
     public static final String SEARCH_TEXT = "searchText";
     public static final String SEARCH_FIELDS = "searchFields";
+    public static final String SEARCH_MODE = "searchMode";
     public static final String START_DATE_TIME = "startDateTime";
     public static final String END_DATE_TIME = "endDateTime";
     public static final String DATE_FIELD = "dateField"; // which field to apply date filter on
     public static final String DATE_FILTER = "dateFilter";
     public static final String SORT = "sort";
 
-    /**
-     * Builds a dynamic MongoDB Query object from flexible parameters.
-     */
-    @SuppressWarnings("unchecked")
-    public static Query buildQuery(Map<String, Object> searchParams) {
-        List<Criteria> allCriteria = new ArrayList<>();
-
-        if (searchParams.containsKey(IDS_LIST))
-            addIncludeIdsCriteria(searchParams, allCriteria);
-        if (searchParams.containsKey(NOT_IDS_LIST))
-            addExcludeIdsCriteria(searchParams, allCriteria);
-        if (searchParams.containsKey(SEARCH_TEXT) && searchParams.containsKey(SEARCH_FIELDS))
-            addSearchTextCriteria(searchParams, allCriteria);
-        if (searchParams.containsKey(FILTERS))
-            addFilterCriteria(searchParams, allCriteria);
-        if (searchParams.containsKey(DATE_FILTER))
-            addDateRangeCriteria(searchParams, allCriteria);
-
-        Criteria finalCriteria = allCriteria.isEmpty()
-                ? new Criteria()
-                : new Criteria().andOperator(allCriteria.toArray(new Criteria[0]));
-
+    private static final String REGEX_PREFIX = "regex:";
 
-        Query query = Query.query(finalCriteria);
-        if (searchParams.containsKey(SORT))
-            addSortCriteria(searchParams, query);
-        return query;
-    }
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
-    private static void addIncludeIdsCriteria(Map<String, Object> searchParams, List<Criteria> criteriaList) {
-        List<String> ids = castToStringList(searchParams.get(IDS_LIST));
-        if (!ids.isEmpty()) {
-            criteriaList.add(Criteria.where(MongoDBConstants.FIELD_ID).in(ids));
-        }
-    }
+    private static final Cache<String, CompiledQuery> PLANS = Caffeine.newBuilder()
+            .maximumSize(1_024)
+            .build();
 
-    private static void addExcludeIdsCriteria(Map<String, Object> searchParams, List<Criteria> criteriaList) {
-        List<String> notIds = castToStringList(searchParams.get(NOT_IDS_LIST));
-        if (!notIds.isEmpty()) {
-            criteriaList.add(Criteria.where(MongoDBConstants.FIELD_ID).nin(notIds));
-        }
-    }
-
-    private static void addSearchTextCriteria(Map<String, Object> searchParams, List<Criteria> criteriaList) {
-        String searchText = Objects.toString(searchParams.get(SEARCH_TEXT), "").trim();
-        List<String> fields = castToStringList(searchParams.get(SEARCH_FIELDS));
-
-        if (!searchText.isEmpty() && !fields.isEmpty()) {
-            criteriaList.add(buildSearchTextCriteria(searchText, fields));
-        }
-    }
-
-    @SuppressWarnings("unchecked")
-    private static void addFilterCriteria(Map<String, Object> searchParams, List<Criteria> criteriaList) {
-        Map<String, Object> filters = (Map<String, Object>) searchParams.get(FILTERS);
-        Criteria filterCriteria = buildFilterCriteria(filters);
-        if (filterCriteria != null) {
-            criteriaList.add(filterCriteria);
-        }
-    }
-
-    private static void addDateRangeCriteria(Map<String, Object> searchParams, List<Criteria> criteriaList) {
-        Criteria dateCriteria = buildDateRangeCriteria(searchParams);
-        criteriaList.add(dateCriteria);
+    /**
+     * How a single filter value is turned into Criteria; decided once per shape.
+     */
+    enum FieldKind {
+        ALL, IN_VALUES, IN_VALUE, NIN, SIZE, EXISTS, REGEX_OP, EQ_OP, IN_COLLECTION, REGEX_STRING, EQ
     }
 
     /**
-     * Builds a regex OR operator across multiple fields for text search.
+     * Builds a dynamic MongoDB Query object from flexible parameters.
+     * Uses the cached plan for this parameter shape (see {@link #compile}).
      */
-    private static Criteria buildSearchTextCriteria(String searchText, List<String> fields) {
-        Pattern pattern = Pattern.compile(Pattern.quote(searchText), Pattern.CASE_INSENSITIVE);
-        return new Criteria().orOperator(fields.stream()
-                .map(field -> Criteria.where(field).regex(pattern))
-                .toArray(Criteria[]::new));
+    public static Query buildQuery(Map<String, Object> searchParams) {
+        return compile(searchParams).bind(searchParams);
     }
 
     /**
-     * Builds AND/OR filter criteria from provided map.
+     * Returns the compiled plan for the shape of these parameters, compiling it on first use.
+     * Structural errors (unknown operator, wrong value type, bad sort) are raised here, like buildQuery always did.
      */
-    @SuppressWarnings("unchecked")
-    private static Criteria buildFilterCriteria(Map<String, Object> filters) {
-        if (filters == null || filters.isEmpty()) return null;
-
-        List<Criteria> orCriteria = new ArrayList<>();
-        List<Criteria> andCriteria = new ArrayList<>();
-
-        // Process OR conditions
-        if (filters.containsKey(OR)) {
-            Map<String, Object> orMap = (Map<String, Object>) filters.get(OR);
-            orMap.forEach((key, value) -> orCriteria.add(buildFieldCriteria(key, value)));
-        }
-
-        // Process AND conditions
-        if (filters.containsKey(AND)) {
-            Map<String, Object> andMap = (Map<String, Object>) filters.get(AND);
-            andMap.forEach((key, value) -> andCriteria.add(buildFieldCriteria(key, value)));
-        }
-
-        // Combine
-        if (!orCriteria.isEmpty() && !andCriteria.isEmpty()) {
-            return new Criteria().andOperator(
-                    new Criteria().orOperator(orCriteria.toArray(new Criteria[0])),
-                    new Criteria().andOperator(andCriteria.toArray(new Criteria[0]))
-            );
-        } else if (!orCriteria.isEmpty()) {
-            return new Criteria().orOperator(orCriteria.toArray(new Criteria[0]));
-        } else if (!andCriteria.isEmpty()) {
-            return new Criteria().andOperator(andCriteria.toArray(new Criteria[0]));
-        }
-        return null;
+    public static CompiledQuery compile(Map<String, Object> searchParams) {
+        String shape = shapeOf(searchParams);
+        return PLANS.get(shape, key -> compilePlan(searchParams));
     }
 
     /**
-     * Builds field-level criteria based on type (List, String regex, exact match, etc.)
+     * Builds the text search criteria for the selected mode.
+     * <p>
+     * CONTAINS: unanchored case-insensitive regex OR across the raw fields (collection scan).<br>
+     * PREFIX / EXACT: anchored regex / equality OR across the normalized _search.* shadow fields (index range).<br>
+     * TEXT: a single $text clause; the collection's text index decides which fields are searched.
      */
-    @SuppressWarnings("unchecked")
-    private static Criteria buildFieldCriteria(String key, Object value) {
-        // 1) Structured operator map: { "op": "all", "values": [...] } or { "op": "size", "value": 3 }
-        if (value instanceof Map<?, ?>) {
-            Map<String, Object> opMap = (Map<String, Object>) value;
-            String op = Objects.toString(opMap.getOrDefault("op", "in")).toLowerCase();
-
-            switch (op) {
-                case "all": {
-                    Object vals = opMap.get("values");
-                    if (vals instanceof Collection<?> coll) {
-                        return Criteria.where(key).all(coll);
-                    }
-                    throw new IllegalArgumentException("Operator 'all' requires a collection in 'values'.");
-                }
-                case "in": {
-                    Object vals = opMap.get("values");
-                    if (vals instanceof Collection<?> coll) {
-                        return Criteria.where(key).in(coll);
-                    }
-                    // also allow legacy key "values" absent but raw list passed
-                    if (opMap.get("value") instanceof Collection<?> coll2) {
-                        return Criteria.where(key).in(coll2);
-                    }
-                    throw new IllegalArgumentException("Operator 'in' requires a collection in 'values'.");
-                }
-                case "nin": {
-                    Object vals = opMap.get("values");
-                    if (vals instanceof Collection<?> coll) {
-                        return Criteria.where(key).nin(coll);
-                    }
-                    throw new IllegalArgumentException("Operator 'nin' requires a collection in 'values'.");
-                }
-                case "size": {
-                    Object v = opMap.get("value");
-                    if (v instanceof Number n) {
-                        return Criteria.where(key).size(n.intValue());
-                    }
-                    throw new IllegalArgumentException("Operator 'size' requires numeric 'value'.");
-                }
-                case "exists": {
-                    Object v = opMap.get("value");
-                    if (v instanceof Boolean b) {
-                        return Criteria.where(key).exists(b);
-                    }
-                    throw new IllegalArgumentException("Operator 'exists' requires boolean 'value'.");
-                }
-                case "regex": {
-                    // support pattern + options, or "pattern" only
-                    String pattern = Objects.toString(opMap.getOrDefault("pattern", ""), "");
-                    String options = Objects.toString(opMap.getOrDefault("options", "i")); // default ignore-case
-                    if (!pattern.isEmpty()) {
-                        return Criteria.where(key).regex(pattern, options);
-                    }
-                    throw new IllegalArgumentException("Operator 'regex' requires 'pattern'.");
-                }
-                case "eq": {
-                    return Criteria.where(key).is(opMap.get("value"));
-                }
-                default:
-                    throw new IllegalArgumentException("Unsupported filter operator: " + op);
+    private static Criteria buildSearchTextCriteria(SearchMode mode, String searchText, List<String> fields) {
+        return switch (mode) {
+            case CONTAINS -> {
+                Pattern pattern = Pattern.compile(Pattern.quote(searchText), Pattern.CASE_INSENSITIVE);
+                yield new Criteria().orOperator(fields.stream()
+                        .map(field -> Criteria.where(field).regex(pattern))
+                        .toArray(Criteria[]::new));
             }
-        }
-
-        // 2) Collection -> default to .in(...) for backward compatibility
-        if (value instanceof Collection<?>) {
-            return Criteria.where(key).in((Collection<?>) value);
-        }
-
-        // 3) String -> allow the regex: prefix as before
-        if (value instanceof String str) {
-            if (str.startsWith("regex:")) {
-                String pattern = str.substring("regex:".length());
-                return Criteria.where(key).regex(pattern, "i");
+            case PREFIX -> {
+                String regex = SearchTextNormalizer.prefixRegex(SearchTextNormalizer.normalize(searchText));
+                yield new Criteria().orOperator(fields.stream()
+                        .map(field -> Criteria.where(SearchTextNormalizer.shadowPath(field)).regex(regex))
+                        .toArray(Criteria[]::new));
             }
-            // plain string exact match
-            return Criteria.where(key).is(str);
-        }
-
-        // 4) Fallback to exact match for other types (Number, Boolean...)
-        return Criteria.where(key).is(value);
+            case EXACT -> {
+                String normalized = SearchTextNormalizer.normalize(searchText);
+                yield new Criteria().orOperator(fields.stream()
+                        .map(field -> Criteria.where(SearchTextNormalizer.shadowPath(field)).is(normalized))
+                        .toArray(Criteria[]::new));
+            }
+            case TEXT -> Criteria.where("$text").is(new Document("$search", searchText));
+        };
     }
 
-
     @SuppressWarnings("unchecked")
     private static Criteria buildDateRangeCriteria(Map<String, Object> searchParams) {
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            Map<String, Object> dateFilter = objectMapper.convertValue(
-                    searchParams.get(DATE_FILTER), new TypeReference<>() {
-                    }
-            );
+            Object rawDateFilter = searchParams.get(DATE_FILTER);
+            Map<String, Object> dateFilter = rawDateFilter instanceof Map<?, ?> map
+                    ? (Map<String, Object>) map
+                    : OBJECT_MAPPER.convertValue(rawDateFilter, new TypeReference<>() {
+            });
 
             String filterType = Objects.toString(dateFilter.getOrDefault("type", "between"));
             String dateField = Objects.toString(dateFilter.getOrDefault("field", "createdAt"));
@@ -364,6 +239,219 @@ public class QueryBuilderUtil {
         }
     }
 
+    /* ============================================================
+       ⚡ Compiled plans
+       ============================================================ */
+
+    /**
+     * Cache key describing everything that changes the Criteria structure, but none of the bound values.
+     * Also validates the structure so that compilePlan never fails.
+     */
+    static String shapeOf(Map<String, Object> searchParams) {
+        StringBuilder shape = new StringBuilder(64);
+
+        if (searchParams.containsKey(IDS_LIST) && !castToStringList(searchParams.get(IDS_LIST)).isEmpty())
+            shape.append("I;");
+        if (searchParams.containsKey(NOT_IDS_LIST) && !castToStringList(searchParams.get(NOT_IDS_LIST)).isEmpty())
+            shape.append("N;");
+        if (hasSearchText(searchParams)) {
+            shape.append('T').append(SearchMode.from(searchParams.get(SEARCH_MODE)).ordinal());
+            castToStringList(searchParams.get(SEARCH_FIELDS)).forEach(field -> appendName(shape, field));
+            shape.append(';');
+        }
+        if (searchParams.containsKey(FILTERS)) {
+            Map<String, Object> filters = asFilterGroup(searchParams.get(FILTERS), FILTERS);
+            if (filters != null && !filters.isEmpty()) {
+                shape.append('F');
+                appendGroupShape(shape, filters, OR);
+                shape.append('|');
+                appendGroupShape(shape, filters, AND);
+                shape.append(';');
+            }
+        }
+        if (searchParams.containsKey(DATE_FILTER))
+            shape.append("D;");
+        if (searchParams.containsKey(SORT)) {
+            Sort sort = buildSort(searchParams.get(SORT));
+            if (sort.isSorted()) {
+                shape.append('S');
+                sort.forEach(order -> {
+                    appendName(shape, order.getProperty());
+                    shape.append(order.isAscending() ? '+' : '-');
+                });
+                shape.append(';');
+            }
+        }
+        return shape.toString();
+    }
+
+    private static CompiledQuery compilePlan(Map<String, Object> searchParams) {
+        List<CompiledQuery.Binder> binders = new ArrayList<>();
+
+        if (searchParams.containsKey(IDS_LIST) && !castToStringList(searchParams.get(IDS_LIST)).isEmpty()) {
+            binders.add(params -> Criteria.where(MongoDBConstants.FIELD_ID).in(castToStringList(params.get(IDS_LIST))));
+        }
+        if (searchParams.containsKey(NOT_IDS_LIST) && !castToStringList(searchParams.get(NOT_IDS_LIST)).isEmpty()) {
+            binders.add(params -> Criteria.where(MongoDBConstants.FIELD_ID).nin(castToStringList(params.get(NOT_IDS_LIST))));
+        }
+        if (hasSearchText(searchParams)) {
+            List<String> fields = castToStringList(searchParams.get(SEARCH_FIELDS));
+            SearchMode mode = SearchMode.from(searchParams.get(SEARCH_MODE));
+            binders.add(params ->
+                    buildSearchTextCriteria(mode, Objects.toString(params.get(SEARCH_TEXT), "").trim(), fields));
+        }
+        if (searchParams.containsKey(FILTERS)) {
+            CompiledQuery.Binder filterBinder = compileFilters(asFilterGroup(searchParams.get(FILTERS), FILTERS));
+            if (filterBinder != null) {
+                binders.add(filterBinder);
+            }
+        }
+        if (searchParams.containsKey(DATE_FILTER)) {
+            // value-dependent ("today" is relative to now), so the whole date criteria is built at bind time
+            binders.add(QueryBuilderUtil::buildDateRangeCriteria);
+        }
+
+        Sort sort = searchParams.containsKey(SORT) ? buildSort(searchParams.get(SORT)) : Sort.unsorted();
+        return new CompiledQuery(binders, sort);
+    }
+
+    private record FieldPlan(String key, FieldKind kind) {
+    }
+
+    private static CompiledQuery.Binder compileFilters(Map<String, Object> filters) {
+        if (filters == null || filters.isEmpty()) return null;
+
+        List<FieldPlan> orFields = fieldPlans(asFilterGroup(filters.get(OR), OR));
+        List<FieldPlan> andFields = fieldPlans(asFilterGroup(filters.get(AND), AND));
+        if (orFields.isEmpty() && andFields.isEmpty()) return null;
+
+        return params -> {
+            Map<String, Object> bound = asFilterGroup(params.get(FILTERS), FILTERS);
+            Criteria[] or = bindFields(orFields, asFilterGroup(bound.get(OR), OR));
+            Criteria[] and = bindFields(andFields, asFilterGroup(bound.get(AND), AND));
+
+            if (or.length > 0 && and.length > 0) {
+                return new Criteria().andOperator(
+                        new Criteria().orOperator(or),
+                        new Criteria().andOperator(and)
+                );
+            }
+            return or.length > 0 ? new Criteria().orOperator(or) : new Criteria().andOperator(and);
+        };
+    }
+
+    private static List<FieldPlan> fieldPlans(Map<String, Object> group) {
+        if (group == null) return List.of();
+        List<FieldPlan> plans = new ArrayList<>(group.size());
+        group.forEach((key, value) -> plans.add(new FieldPlan(key, fieldKind(value))));
+        return plans;
+    }
+
+    private static Criteria[] bindFields(List<FieldPlan> plans, Map<String, Object> group) {
+        Criteria[] criteria = new Criteria[plans.size()];
+        for (int i = 0; i < criteria.length; i++) {
+            FieldPlan plan = plans.get(i);
+            criteria[i] = bindField(plan.key(), plan.kind(), group.get(plan.key()));
+        }
+        return criteria;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Criteria bindField(String key, FieldKind kind, Object value) {
+        Map<String, Object> opMap = value instanceof Map<?, ?> map ? (Map<String, Object>) map : null;
+        return switch (kind) {
+            case ALL -> Criteria.where(key).all((Collection<?>) opMap.get("values"));
+            case IN_VALUES -> Criteria.where(key).in((Collection<?>) opMap.get("values"));
+            case IN_VALUE -> Criteria.where(key).in((Collection<?>) opMap.get("value"));
+            case NIN -> Criteria.where(key).nin((Collection<?>) opMap.get("values"));
+            case SIZE -> Criteria.where(key).size(((Number) opMap.get("value")).intValue());
+            case EXISTS -> Criteria.where(key).exists((Boolean) opMap.get("value"));
+            case REGEX_OP -> Criteria.where(key).regex(
+                    Objects.toString(opMap.getOrDefault("pattern", ""), ""),
+                    Objects.toString(opMap.getOrDefault("options", "i")));
+            case EQ_OP -> Criteria.where(key).is(opMap.get("value"));
+            case IN_COLLECTION -> Criteria.where(key).in((Collection<?>) value);
+            case REGEX_STRING -> Criteria.where(key).regex(((String) value).substring(REGEX_PREFIX.length()), "i");
+            case EQ -> Criteria.where(key).is(value);
+        };
+    }
+
+    /**
+     * How a filter value is matched: an operator map ({ "op": "all", "values": [...] }, default "in"),
+     * a collection ($in), a "regex:" string (case-insensitive regex) or anything else (equality).
+     * Validates the operator map, so that binding never fails on structure.
+     */
+    @SuppressWarnings("unchecked")
+    static FieldKind fieldKind(Object value) {
+        if (value instanceof Map<?, ?>) {
+            Map<String, Object> opMap = (Map<String, Object>) value;
+            String op = Objects.toString(opMap.getOrDefault("op", "in")).toLowerCase();
+
+            return switch (op) {
+                case "all" -> {
+                    if (opMap.get("values") instanceof Collection<?>) yield FieldKind.ALL;
+                    throw new IllegalArgumentException("Operator 'all' requires a collection in 'values'.");
+                }
+                case "in" -> {
+                    if (opMap.get("values") instanceof Collection<?>) yield FieldKind.IN_VALUES;
+                    if (opMap.get("value") instanceof Collection<?>) yield FieldKind.IN_VALUE;
+                    throw new IllegalArgumentException("Operator 'in' requires a collection in 'values'.");
+                }
+                case "nin" -> {
+                    if (opMap.get("values") instanceof Collection<?>) yield FieldKind.NIN;
+                    throw new IllegalArgumentException("Operator 'nin' requires a collection in 'values'.");
+                }
+                case "size" -> {
+                    if (opMap.get("value") instanceof Number) yield FieldKind.SIZE;
+                    throw new IllegalArgumentException("Operator 'size' requires numeric 'value'.");
+                }
+                case "exists" -> {
+                    if (opMap.get("value") instanceof Boolean) yield FieldKind.EXISTS;
+                    throw new IllegalArgumentException("Operator 'exists' requires boolean 'value'.");
+                }
+                case "regex" -> {
+                    if (!Objects.toString(opMap.getOrDefault("pattern", ""), "").isEmpty()) yield FieldKind.REGEX_OP;
+                    throw new IllegalArgumentException("Operator 'regex' requires 'pattern'.");
+                }
+                case "eq" -> FieldKind.EQ_OP;
+                default -> throw new IllegalArgumentException("Unsupported filter operator: " + op);
+            };
+        }
+        if (value instanceof Collection<?>) return FieldKind.IN_COLLECTION;
+        if (value instanceof String str && str.startsWith(REGEX_PREFIX)) return FieldKind.REGEX_STRING;
+        return FieldKind.EQ;
+    }
+
+    private static void appendGroupShape(StringBuilder shape, Map<String, Object> filters, String groupName) {
+        Map<String, Object> group = asFilterGroup(filters.get(groupName), groupName);
+        if (group == null) return;
+        group.forEach((key, value) -> {
+            appendName(shape, key);
+            shape.append(fieldKind(value).ordinal()).append(',');
+        });
+    }
+
+    /**
+     * Length-prefixed so that arbitrary field names cannot collide with the shape syntax.
+     */
+    private static void appendName(StringBuilder shape, String name) {
+        shape.append(name.length()).append(':').append(name);
+    }
+
+    private static boolean hasSearchText(Map<String, Object> searchParams) {
+        return searchParams.containsKey(SEARCH_TEXT)
+                && searchParams.containsKey(SEARCH_FIELDS)
+                && !Objects.toString(searchParams.get(SEARCH_TEXT), "").trim().isEmpty()
+                && !castToStringList(searchParams.get(SEARCH_FIELDS)).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asFilterGroup(Object value, String name) {
+        if (value == null) return null;
+        if (value instanceof Map<?, ?> map) return (Map<String, Object>) map;
+        throw new IllegalArgumentException("'" + name + "' must be an object.");
+    }
+
     private static List<String> castToStringList(Object input) {
         if (input instanceof List<?>) {
             return ((List<?>) input).stream()
@@ -374,24 +462,17 @@ public class QueryBuilderUtil {
     }
 
     /**
-     * Adds sorting logic to the query.
-     * <p>
      * Expected format:
      * "sort": {
      * "fieldName": 1 | -1
      * }
      */
-    @SuppressWarnings("unchecked")
-    private static void addSortCriteria(
-            Map<String, Object> searchParams,
-            Query query
-    ) {
-        Object sortObj = searchParams.get(SORT);
-
+    private static Sort buildSort(Object sortObj) {
         if (!(sortObj instanceof Map<?, ?> sortMap) || sortMap.isEmpty()) {
-            return;
+            return Sort.unsorted();
         }
 
+        List<Sort.Order> orders = new ArrayList<>(sortMap.size());
         sortMap.forEach((field, direction) -> {
             if (!(direction instanceof Number)) {
                 throw new IllegalArgumentException(
@@ -406,15 +487,11 @@ public class QueryBuilderUtil {
                 );
             }
 
-            query.with(
-                    Sort.by(
-                            dir == 1
-                                    ? Sort.Direction.ASC
-                                    : Sort.Direction.DESC,
-                            field.toString()
-                    )
-            );
+            orders.add(dir == 1
+                    ? Sort.Order.asc(field.toString())
+                    : Sort.Order.desc(field.toString()));
         });
+        return Sort.by(orders);
     }
 
 }
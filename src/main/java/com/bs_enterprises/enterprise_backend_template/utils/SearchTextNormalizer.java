@@ -0,0 +1,54 @@
+package com.bs_enterprises.enterprise_backend_template.utils;
+
+import com.bs_enterprises.enterprise_backend_template.constants.MongoDBConstants;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normal form of searchable text, used both when writing the {@code _search.*} shadow fields
+ * and when querying them: accents stripped, lower-cased, whitespace collapsed.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class SearchTextNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String REGEX_META = "\\^$.|?*+()[]{}";
+
+    /**
+     * Shadow field of a searchable field ({@code profile.name} → {@code _search.profile_name}).
+     */
+    public static String shadowPath(String field) {
+        return MongoDBConstants.FIELD_SEARCH_SHADOW + "." + field.replace('.', '_');
+    }
+
+    public static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFKD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Anchored prefix regex with every metacharacter backslash-escaped.
+     * Unlike Pattern.quote (\Q...\E) this form is recognised by the query planner as a simple prefix,
+     * so it becomes a tight index range.
+     */
+    public static String prefixRegex(String normalizedPrefix) {
+        StringBuilder regex = new StringBuilder(normalizedPrefix.length() + 8).append('^');
+        for (int i = 0; i < normalizedPrefix.length(); i++) {
+            char c = normalizedPrefix.charAt(i);
+            if (REGEX_META.indexOf(c) >= 0) {
+                regex.append('\\');
+            }
+            regex.append(c);
+        }
+        return regex.toString();
+    }
+}
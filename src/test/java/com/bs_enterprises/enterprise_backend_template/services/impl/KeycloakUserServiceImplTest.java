@@ -0,0 +1,279 @@
+package com.bs_enterprises.enterprise_backend_template.services.impl;
+
+import com.bs_enterprises.enterprise_backend_template.config.KeycloakProperties;
+import com.bs_enterprises.enterprise_backend_template.models.users.KeycloakBulkCreateResult;
+import com.bs_enterprises.enterprise_backend_template.models.users.KeycloakUserModel;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.KeycloakBuilder;
+import org.keycloak.representations.idm.UserRepresentation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * createUsers / updateUserFields / the getUser cache against a stand-in for the Keycloak admin endpoints (JDK HttpServer): the admin
+ * client authenticates with a static token, so no token endpoint is needed.
+ */
+class KeycloakUserServiceImplTest {
+
+	private static final String REALM = "tenant-a";
+	private static final Set<String> EXISTING_USERNAMES = Set.of("taken");
+	private static final String REJECTED_USERNAME = "broken";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final List<JsonNode> requests = new CopyOnWriteArrayList<>();
+	private final List<String> authorizations = new CopyOnWriteArrayList<>();
+	private final List<String> userCalls = new CopyOnWriteArrayList<>();
+	private volatile String firstNameInKeycloak = "Alice";
+
+	private HttpServer server;
+	private Keycloak keycloak;
+	private KeycloakUserServiceImpl service;
+
+	@BeforeEach
+	void startStub() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/admin/realms/" + REALM + "/partialImport", this::partialImport);
+		server.createContext("/admin/realms/" + REALM + "/users/", this::user);
+		server.start();
+
+		keycloak = KeycloakBuilder.builder()
+				.serverUrl("http://127.0.0.1:" + server.getAddress().getPort())
+				.realm("master")
+				.authorization("static-token")
+				.build();
+
+		KeycloakProperties properties = new KeycloakProperties();
+		properties.setBulkImportChunkSize(2);
+		service = new KeycloakUserServiceImpl(keycloak, objectMapper, properties, new SimpleMeterRegistry());
+	}
+
+	@AfterEach
+	void stopStub() {
+		keycloak.close();
+		server.stop(0);
+	}
+
+	@Test
+	void createsUsersInChunksAndMapsKeycloakIdsBackToLocalIds() {
+		KeycloakBulkCreateResult result = service.createUsers(REALM, List.of(
+				user("1", "Alice"), user("2", "bob"), user("3", "carol"), user("4", "dave"), user("5", "erin")));
+
+		assertEquals(Map.of("1", "kc-alice", "2", "kc-bob", "3", "kc-carol", "4", "kc-dave", "5", "kc-erin"), result.created());
+		assertTrue(result.failed().isEmpty());
+
+		assertEquals(3, requests.size());
+		for (JsonNode request : requests) {
+			assertEquals("SKIP", request.path("ifResourceExists").asText());
+			for (JsonNode user : request.path("users")) {
+				assertFalse(user.hasNonNull("id"), "Keycloak generates the ids");
+			}
+		}
+		assertTrue(authorizations.stream().allMatch("Bearer static-token"::equals));
+	}
+
+	@Test
+	void reportsUsersKeycloakSkippedAsFailed() {
+		KeycloakBulkCreateResult result = service.createUsers(REALM, List.of(user("1", "alice"), user("2", "taken")));
+
+		assertEquals(Map.of("1", "kc-alice"), result.created());
+		assertEquals(Set.of("2"), result.failed().keySet());
+	}
+
+	@Test
+	void rejectedChunkFailsOnlyItsOwnUsers() {
+		KeycloakBulkCreateResult result = service.createUsers(REALM, List.of(
+				user("1", "alice"), user("2", REJECTED_USERNAME), user("3", "carol")));
+
+		assertEquals(Map.of("3", "kc-carol"), result.created());
+		assertEquals(Set.of("1", "2"), result.failed().keySet());
+		assertTrue(result.failed().get("1").contains("HTTP 400"));
+	}
+
+	@Test
+	void repeatedUsernameInOneChunkIsNotSent() {
+		KeycloakBulkCreateResult result = service.createUsers(REALM, List.of(user("1", "alice"), user("2", "ALICE")));
+
+		assertEquals(Map.of("1", "kc-alice"), result.created());
+		assertEquals(Set.of("2"), result.failed().keySet());
+		assertEquals(1, requests.get(0).path("users").size());
+	}
+
+	@Test
+	void updateUserFieldsSendsOnlyTheChangedFieldsWithoutReadingTheUser() throws IOException {
+		KeycloakUserModel model = user("1", "alice");
+		model.setLastName("Changed");
+		model.setEmail(null);
+
+		service.updateUserFields(REALM, "kc-alice", model, Set.of("lastName", "email"));
+
+		assertEquals(1, userCalls.size());
+		String[] call = userCalls.get(0).split(" ", 3);
+		assertEquals("PUT", call[0]);
+		assertEquals("/admin/realms/" + REALM + "/users/kc-alice", call[1]);
+		JsonNode body = objectMapper.readTree(call[2]);
+		assertEquals("Changed", body.path("lastName").asText());
+		assertEquals("", body.path("email").asText());
+		assertFalse(body.hasNonNull("firstName"));
+		assertFalse(body.hasNonNull("username"));
+		assertFalse(body.hasNonNull("enabled"));
+	}
+
+	@Test
+	void getUserReadsKeycloakEveryTimeWhenTheCacheIsOff() {
+		service.getUser(REALM, null, "kc-alice");
+		service.getUser(REALM, null, "kc-alice");
+
+		assertEquals(2, gets());
+	}
+
+	@Test
+	void cachedGetUserReadsEachUserOnceAndHandsOutCopies() {
+		KeycloakUserServiceImpl cached = cachingService();
+
+		UserRepresentation first = cached.getUser(REALM, null, "kc-alice");
+		first.setFirstName("Modified by the caller");
+		UserRepresentation second = cached.getUser(REALM, null, "kc-alice");
+		cached.getUser(REALM, null, "kc-bob");
+
+		assertEquals("Alice", second.getFirstName());
+		assertEquals(2, gets());
+	}
+
+	@Test
+	void updateUserReadsKeycloakNotTheCacheAndInvalidatesTheEntry() throws IOException {
+		KeycloakUserServiceImpl cached = cachingService();
+		cached.getUser(REALM, null, "kc-alice");
+		firstNameInKeycloak = "Changed in the console";
+
+		KeycloakUserModel model = user("1", "alice");
+		model.setFirstName(null);
+		cached.updateUser(REALM, "kc-alice", model);
+
+		assertEquals(2, gets());
+		String put = userCalls.get(userCalls.size() - 1);
+		assertTrue(put.startsWith("PUT "));
+		assertEquals("Changed in the console", objectMapper.readTree(put.split(" ", 3)[2]).path("firstName").asText());
+
+		firstNameInKeycloak = "Changed again";
+		assertEquals("Changed again", cached.getUser(REALM, null, "kc-alice").getFirstName());
+		assertEquals(3, gets());
+	}
+
+	@Test
+	void deleteAndSetPasswordInvalidateTheCachedUser() {
+		KeycloakUserServiceImpl cached = cachingService();
+		cached.getUser(REALM, null, "kc-alice");
+		cached.setPassword(REALM, null, "kc-alice", "secret", true);
+		cached.getUser(REALM, null, "kc-alice");
+		cached.deleteUser(REALM, "kc-alice");
+		cached.getUser(REALM, null, "kc-alice");
+
+		assertEquals(3, gets());
+	}
+
+	private KeycloakUserServiceImpl cachingService() {
+		KeycloakProperties properties = new KeycloakProperties();
+		properties.getUserCache().setEnabled(true);
+		return new KeycloakUserServiceImpl(keycloak, objectMapper, properties, new SimpleMeterRegistry());
+	}
+
+	private long gets() {
+		return userCalls.stream().filter(call -> call.startsWith("GET ")).count();
+	}
+
+	/**
+	 * Records "METHOD path body"; answers GET with the user (username from the "kc-" id) and anything else
+	 * with 204, like Keycloak's user endpoint.
+	 */
+	private void user(HttpExchange exchange) throws IOException {
+		String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+		String path = exchange.getRequestURI().getPath();
+		userCalls.add(exchange.getRequestMethod() + " " + path + " " + body);
+		if ("GET".equals(exchange.getRequestMethod())) {
+			String id = path.substring(path.lastIndexOf('/') + 1);
+			ObjectNode user = objectMapper.createObjectNode()
+					.put("id", id)
+					.put("username", id.substring("kc-".length()))
+					.put("firstName", firstNameInKeycloak)
+					.put("lastName", "Last")
+					.put("enabled", true);
+			respond(exchange, 200, objectMapper.writeValueAsString(user));
+			return;
+		}
+		exchange.sendResponseHeaders(204, -1);
+		exchange.close();
+	}
+
+	/**
+	 * Mimics Keycloak: usernames stored lower-case, existing users SKIPPED, results listing every user.
+	 */
+	private void partialImport(HttpExchange exchange) throws IOException {
+		JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+		requests.add(request);
+		authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+
+		ObjectNode response = objectMapper.createObjectNode();
+		ArrayNode results = response.putArray("results");
+		int added = 0;
+		int skipped = 0;
+		for (JsonNode user : request.path("users")) {
+			String username = user.path("username").asText().toLowerCase(Locale.ROOT);
+			if (REJECTED_USERNAME.equals(username)) {
+				respond(exchange, 400, "{\"errorMessage\":\"invalid user " + username + "\"}");
+				return;
+			}
+			boolean exists = EXISTING_USERNAMES.contains(username);
+			results.addObject()
+					.put("action", exists ? "SKIPPED" : "ADDED")
+					.put("resourceType", "USER")
+					.put("resourceName", username)
+					.put("id", exists ? "existing-" + username : "kc-" + username);
+			if (exists) skipped++;
+			else added++;
+		}
+		response.put("added", added).put("skipped", skipped).put("overwritten", 0);
+		respond(exchange, 200, objectMapper.writeValueAsString(response));
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static KeycloakUserModel user(String id, String username) {
+		return KeycloakUserModel.builder()
+				.id(id)
+				.username(username)
+				.firstName("First " + username)
+				.lastName("Last")
+				.email(username.toLowerCase(Locale.ROOT) + "@example.com")
+				.enabled(true)
+				.build();
+	}
+}
@@ -0,0 +1,106 @@
+package com.bs_enterprises.enterprise_backend_template.services.impl;
+
+import com.bs_enterprises.enterprise_backend_template.config.MongoTenantProperties;
+import com.bs_enterprises.enterprise_backend_template.handlers.exceptions.KeycloakException;
+import com.bs_enterprises.enterprise_backend_template.models.users.KeycloakUserModel;
+import com.bs_enterprises.enterprise_backend_template.models.users.UserSecrets;
+import com.bs_enterprises.enterprise_backend_template.repositories.GenericMongoRepository;
+import com.bs_enterprises.enterprise_backend_template.services.DatabaseService;
+import com.bs_enterprises.enterprise_backend_template.services.IndexingService;
+import com.bs_enterprises.enterprise_backend_template.services.KeycloakUserService;
+import com.bs_enterprises.enterprise_backend_template.services.UserSecretService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * provisionNewUser in parallel, non-transactional mode: the index confirmation waits for the Keycloak create.
+ */
+class UserAccountServiceImplTest {
+
+	private static final String REALM = "tenant-a";
+
+	private final KeycloakUserService keycloakUserService = mock(KeycloakUserService.class);
+	private final IndexingService indexingService = mock(IndexingService.class);
+	private final UserSecretService userSecretService = mock(UserSecretService.class);
+	@SuppressWarnings("unchecked")
+	private final GenericMongoRepository<KeycloakUserModel> keycloakUserRepository = mock(GenericMongoRepository.class);
+
+	private ExecutorService executor;
+	private UserAccountServiceImpl service;
+
+	@BeforeEach
+	void setUp() {
+		MongoTenantProperties properties = new MongoTenantProperties();
+		properties.getProvisioning().setParallel(true);
+		properties.getProvisioning().setTransactional(false);
+
+		executor = Executors.newVirtualThreadPerTaskExecutor();
+		service = new UserAccountServiceImpl(keycloakUserService, indexingService, userSecretService,
+				keycloakUserRepository, properties, mock(DatabaseService.class), executor, new SimpleMeterRegistry());
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void keycloakFailureNeverConfirmsAndRollsBackTheMongoWrites() {
+		KeycloakUserModel user = user();
+		KeycloakException failure = new KeycloakException("unavailable", "keycloak unavailable");
+		when(keycloakUserService.createUser(REALM, user)).thenThrow(failure);
+
+		RuntimeException thrown = assertThrows(RuntimeException.class, () -> service.provisionNewUser(REALM, user));
+
+		assertSame(failure, thrown);
+		verify(indexingService, never()).confirmValues(anyString(), any(), anyString(), anyMap());
+		verify(userSecretService, never()).save(any(), anyString(), any());
+		verify(keycloakUserRepository).delete(user.getId(), REALM);
+		verify(keycloakUserService, never()).deleteUser(anyString(), anyString());
+		verify(indexingService).releaseValues(eq(REALM), isNull(), eq(user.getId()), anyMap());
+	}
+
+	@Test
+	void confirmsOnlyAfterKeycloakAndSecretsSucceeded() {
+		KeycloakUserModel user = user();
+		when(keycloakUserService.createUser(REALM, user)).thenReturn("kc-1");
+
+		service.provisionNewUser(REALM, user);
+
+		InOrder order = inOrder(keycloakUserService, userSecretService, indexingService);
+		order.verify(keycloakUserService).createUser(REALM, user);
+		order.verify(userSecretService).save(any(UserSecrets.class), eq(REALM), isNull());
+		order.verify(indexingService).confirmValues(eq(REALM), isNull(), eq(user.getId()), anyMap());
+		verify(indexingService, never()).releaseValues(anyString(), any(), anyString(), anyMap());
+	}
+
+	private static KeycloakUserModel user() {
+		return KeycloakUserModel.builder()
+				.id("1")
+				.username("alice")
+				.firstName("Alice")
+				.lastName("Last")
+				.email("alice@example.com")
+				.enabled(true)
+				.build();
+	}
+}
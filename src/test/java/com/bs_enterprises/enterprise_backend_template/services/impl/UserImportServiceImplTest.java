@@ -0,0 +1,271 @@
+package com.bs_enterprises.enterprise_backend_template.services.impl;
+
+import com.bs_enterprises.enterprise_backend_template.config.MongoTenantProperties;
+import com.bs_enterprises.enterprise_backend_template.constants.MongoDBConstants;
+import com.bs_enterprises.enterprise_backend_template.keys.ExecutionKeys;
+import com.bs_enterprises.enterprise_backend_template.models.bulks.BulkInsertResult;
+import com.bs_enterprises.enterprise_backend_template.models.bulks.BulkItemResult;
+import com.bs_enterprises.enterprise_backend_template.models.bulks.BulkItemStatus;
+import com.bs_enterprises.enterprise_backend_template.models.exports.ExportFormat;
+import com.bs_enterprises.enterprise_backend_template.models.imports.ImportJob;
+import com.bs_enterprises.enterprise_backend_template.models.imports.ImportJobStatus;
+import com.bs_enterprises.enterprise_backend_template.models.imports.ImportPendingRow;
+import com.bs_enterprises.enterprise_backend_template.models.imports.ImportRowError;
+import com.bs_enterprises.enterprise_backend_template.models.users.KeycloakBulkCreateResult;
+import com.bs_enterprises.enterprise_backend_template.models.users.KeycloakUserModel;
+import com.bs_enterprises.enterprise_backend_template.repositories.GenericMongoRepository;
+import com.bs_enterprises.enterprise_backend_template.services.DatabaseService;
+import com.bs_enterprises.enterprise_backend_template.services.IndexingService;
+import com.bs_enterprises.enterprise_backend_template.services.KeycloakUserService;
+import com.bs_enterprises.enterprise_backend_template.services.UserSecretService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * runJob against mocked MongoDB / Keycloak: row rejection, and resuming a job that failed after each of the
+ * chunk's save points (before the Keycloak ids are known, before the MongoDB writes, before the confirmation).
+ */
+class UserImportServiceImplTest {
+
+	private static final String REALM = "tenant-a";
+	private static final String JOB_ID = "job-1";
+	private static final String TWO_USERS = """
+			id,username,firstName,lastName,email
+			1,alice,Alice,Last,alice@example.com
+			2,bob,Bob,Last,bob@example.com
+			""";
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final IndexingService indexingService = mock(IndexingService.class);
+	private final KeycloakUserService keycloakUserService = mock(KeycloakUserService.class);
+	private final UserSecretService userSecretService = mock(UserSecretService.class);
+	@SuppressWarnings("unchecked")
+	private final GenericMongoRepository<KeycloakUserModel> keycloakUserRepository = mock(GenericMongoRepository.class);
+
+	private final List<List<KeycloakUserModel>> keycloakCreates = new ArrayList<>();
+	private ExecutorService executor;
+	private ImportJob job;
+	private UserImportServiceImpl service;
+
+	@BeforeEach
+	void setUp() {
+		DatabaseService databaseService = mock(DatabaseService.class);
+		when(databaseService.changeDatabaseAndGetNewMongoTemplate(REALM)).thenReturn(mongoTemplate);
+
+		job = new ImportJob();
+		job.setId(JOB_ID);
+		job.setFormat(ExportFormat.CSV);
+		job.setStatus(ImportJobStatus.PENDING);
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(ImportJob.class)))
+				.thenReturn(job);
+
+		mongoInsertsSucceed();
+		keycloakCreatesSucceed();
+
+		executor = Executors.newVirtualThreadPerTaskExecutor();
+		service = new UserImportServiceImpl(databaseService, indexingService, keycloakUserService, userSecretService,
+				keycloakUserRepository, mock(Validator.class), new ObjectMapper(), executor, new SimpleMeterRegistry(),
+				new MongoTenantProperties());
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void rejectsValuesRepeatedInTheFileAndValuesAlreadyTaken() {
+		when(indexingService.findExistingValues(eq(REALM), any(), anyMap()))
+				.thenReturn(Map.of(MongoDBConstants.INDEX_EMAILS, Set.of("taken@example.com")));
+
+		ImportJob result = service.runJob(REALM, JOB_ID, csv("""
+				id,username,firstName,lastName,email
+				1,alice,Alice,Last,alice@example.com
+				2,alice2,Alice,Again,alice@example.com
+				3,carol,Carol,Last,taken@example.com
+				"""));
+
+		assertEquals(ImportJobStatus.COMPLETED, result.getStatus());
+		assertEquals(1, result.getCreatedUsers());
+		assertEquals(2, result.getFailedRows());
+		assertEquals(List.of(
+				new ImportRowError(2, "2", ExecutionKeys.IMPORT_DUPLICATE_IN_FILE + ": " + MongoDBConstants.INDEX_EMAILS),
+				new ImportRowError(3, "3", ExecutionKeys.EMAIL_ALREADY_EXISTS)), result.getErrors());
+		assertEquals(List.of(List.of("1")), createdIds());
+	}
+
+	@Test
+	void rejectsRowsNamingUnknownStudiosWithOneLookupPerChunk() {
+		when(indexingService.findMissingIds(eq(REALM), any(), anyCollection(), eq(MongoDBConstants.COLLECTION_STUDIOS)))
+				.thenReturn(Set.of("s3"));
+
+		ImportJob result = service.runJob(REALM, JOB_ID, csv("""
+				id,username,firstName,lastName,email,studioIds
+				1,alice,Alice,Last,alice@example.com,s1;s2
+				2,bob,Bob,Last,bob@example.com,s2;s3
+				"""));
+
+		assertEquals(1, result.getCreatedUsers());
+		assertEquals(List.of(new ImportRowError(2, "2", ExecutionKeys.STUDIO_NOT_FOUND + ": s3")), result.getErrors());
+		verify(indexingService).findMissingIds(eq(REALM), any(), eq(new HashSet<>(List.of("s1", "s2", "s3"))),
+				eq(MongoDBConstants.COLLECTION_STUDIOS));
+		assertEquals(List.of(List.of("1")), createdIds());
+	}
+
+	@Test
+	void resumeDeletesKeycloakUsersCreatedBeforeTheirIdsWereSaved() {
+		// the partial import created alice, then the call failed before the ids reached the job
+		doThrow(new IllegalStateException("node lost")).when(keycloakUserService).createUsers(eq(REALM), anyList());
+		failed(service.runJob(REALM, JOB_ID, csv(TWO_USERS)));
+		assertTrue(job.getPendingRows().stream().allMatch(row -> row.keycloakUserId() == null));
+
+		nothingWritten();
+		when(keycloakUserService.findByUsername(REALM, "alice", 0, 10))
+				.thenReturn(List.of(keycloakUser("kc-orphan", "alice", "alice@example.com")));
+		when(keycloakUserService.findByUsername(REALM, "bob", 0, 10))
+				.thenReturn(List.of(keycloakUser("kc-other", "bob", "someone-else@example.com")));
+		keycloakCreatesSucceed();
+
+		ImportJob result = service.runJob(REALM, JOB_ID, csv(TWO_USERS));
+
+		verify(keycloakUserService).deleteUser(REALM, "kc-orphan");
+		verify(keycloakUserService, never()).deleteUser(REALM, "kc-other");
+		completedWithBothUsers(result);
+	}
+
+	@Test
+	void resumeUndoesKeycloakUsersWhoseMongoWritesNeverHappened() {
+		doThrow(new IllegalStateException("node lost")).when(keycloakUserRepository).createAll(anyCollection(), eq(REALM), any());
+		failed(service.runJob(REALM, JOB_ID, csv(TWO_USERS)));
+		assertEquals(List.of("kc-1", "kc-2"), job.getPendingRows().stream().map(ImportPendingRow::keycloakUserId).toList());
+
+		nothingWritten();
+		mongoInsertsSucceed();
+
+		ImportJob result = service.runJob(REALM, JOB_ID, csv(TWO_USERS));
+
+		verify(keycloakUserService).deleteUser(REALM, "kc-1");
+		verify(keycloakUserService).deleteUser(REALM, "kc-2");
+		verify(keycloakUserService, never()).findByUsername(anyString(), anyString(), anyInt(), anyInt());
+		verify(indexingService).releaseValues(eq(REALM), any(), eq(JOB_ID), anyMap());
+		completedWithBothUsers(result);
+	}
+
+	@Test
+	void resumeConfirmsRowsWrittenBeforeTheConfirmationFailed() {
+		doThrow(new IllegalStateException("node lost"))
+				.doNothing()
+				.when(indexingService).confirmValues(eq(REALM), any(), eq(JOB_ID), anyMap());
+		failed(service.runJob(REALM, JOB_ID, csv(TWO_USERS)));
+
+		// users and secrets exist: findMissingIds answers nothing missing
+		ImportJob result = service.runJob(REALM, JOB_ID, csv(TWO_USERS));
+
+		verify(keycloakUserService, never()).deleteUser(anyString(), anyString());
+		verify(keycloakUserRepository, times(1)).createAll(anyCollection(), eq(REALM), any());
+		assertEquals(1, createdIds().size());
+		assertEquals(ImportJobStatus.COMPLETED, result.getStatus());
+		assertEquals(2, result.getCreatedUsers());
+		assertEquals(0, result.getFailedRows());
+	}
+
+	// doAnswer: re-stubbing with when() would call the previous (throwing) stub
+	private void keycloakCreatesSucceed() {
+		doAnswer(invocation -> {
+			List<KeycloakUserModel> users = invocation.getArgument(1);
+			keycloakCreates.add(List.copyOf(users));
+			Map<String, String> created = new LinkedHashMap<>();
+			users.forEach(user -> created.put(user.getId(), "kc-" + user.getId()));
+			return new KeycloakBulkCreateResult(created, Map.of());
+		}).when(keycloakUserService).createUsers(eq(REALM), anyList());
+	}
+
+	private void mongoInsertsSucceed() {
+		doAnswer(invocation -> {
+			Collection<KeycloakUserModel> users = invocation.getArgument(0);
+			List<BulkItemResult> items = new ArrayList<>();
+			users.forEach(user -> items.add(new BulkItemResult(items.size(), user.getId(), BulkItemStatus.INSERTED, null)));
+			return BulkInsertResult.of(items);
+		}).when(keycloakUserRepository).createAll(anyCollection(), eq(REALM), any());
+	}
+
+	/**
+	 * Neither the user documents nor the secrets of the pending rows exist.
+	 */
+	private void nothingWritten() {
+		for (String collection : List.of(MongoDBConstants.COLLECTION_USERS, MongoDBConstants.COLLECTION_USER_SECRETS)) {
+			when(indexingService.findMissingIds(eq(REALM), any(), anyCollection(), eq(collection)))
+					.thenAnswer(invocation -> new HashSet<String>(invocation.getArgument(2)));
+		}
+	}
+
+	private void failed(ImportJob result) {
+		assertEquals(ImportJobStatus.FAILED, result.getStatus());
+		assertEquals(0, result.getProcessedRows());
+		assertEquals(2, result.getPendingRows().size());
+	}
+
+	private void completedWithBothUsers(ImportJob result) {
+		assertEquals(ImportJobStatus.COMPLETED, result.getStatus());
+		assertEquals(2, result.getProcessedRows());
+		assertEquals(2, result.getCreatedUsers());
+		assertEquals(0, result.getFailedRows());
+		assertTrue(result.getPendingRows().isEmpty());
+		assertEquals(List.of("1", "2"), createdIds().getLast());
+	}
+
+	private List<List<String>> createdIds() {
+		return keycloakCreates.stream().map(users -> users.stream().map(KeycloakUserModel::getId).toList()).toList();
+	}
+
+	private static UserRepresentation keycloakUser(String id, String username, String email) {
+		UserRepresentation user = new UserRepresentation();
+		user.setId(id);
+		user.setUsername(username);
+		user.setEmail(email);
+		return user;
+	}
+
+	private static InputStream csv(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,145 @@
+package com.bs_enterprises.enterprise_backend_template.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NgramIndexTest {
+
+	private final NgramIndex index = new NgramIndex(3);
+
+	@Test
+	void findsSubstringsOfAnyFieldNormalized() {
+		index.put("1", Map.of("firstName", "José", "lastName", "Álvarez"));
+		index.put("2", Map.of("firstName", "Maria", "email", "maria.jose@example.com"));
+
+		assertEquals(List.of("1", "2"), index.search("jose", 10));
+		assertEquals(List.of("1"), index.search("ALVA", 10));
+		assertEquals(List.of("1"), index.search("varez", 10));
+		assertEquals(List.of("2"), index.search("example", 10));
+		assertEquals(List.of(), index.search("xyz", 10));
+	}
+
+	@Test
+	void everyQueryWordMustMatch() {
+		index.put("1", Map.of("firstName", "John", "lastName", "Doe"));
+		index.put("2", Map.of("firstName", "John", "lastName", "Smith"));
+
+		assertEquals(List.of("1"), index.search("john doe", 10));
+		assertEquals(List.of("2"), index.search("smi joh", 10));
+		assertEquals(List.of(), index.search("john brown", 10));
+	}
+
+	@Test
+	void wordPrefixMatchesRankFirst() {
+		index.put("1", Map.of("lastName", "Johnson"));
+		index.put("2", Map.of("lastName", "Ohnesorge"));
+
+		// "ohn" is inside Johnson but starts Ohnesorge
+		assertEquals(List.of("2", "1"), index.search("ohn", 10));
+		assertEquals(List.of("2"), index.search("ohn", 1));
+	}
+
+	@Test
+	void queriesShorterThanTheGramSizeMatchWordPrefixesOnly() {
+		index.put("1", Map.of("firstName", "John", "lastName", "Doe"));
+		index.put("2", Map.of("firstName", "Ada", "lastName", "Lovelace"));
+
+		assertEquals(List.of("1"), index.search("j", 10));
+		assertEquals(List.of("1"), index.search("do", 10));
+		assertEquals(List.of("2"), index.search("lo", 10));
+		// infix shorter than a gram: not indexed
+		assertEquals(List.of(), index.search("oh", 10));
+		assertEquals(List.of("1"), index.search("jo d", 10));
+	}
+
+	@Test
+	void blankQueryOrLimitReturnsNothing() {
+		index.put("1", Map.of("firstName", "John"));
+
+		assertEquals(List.of(), index.search("   ", 10));
+		assertEquals(List.of(), index.search(null, 10));
+		assertEquals(List.of(), index.search("john", 0));
+	}
+
+	@Test
+	void putReplacesTheDocument() {
+		index.put("1", Map.of("firstName", "John"));
+		index.put("1", Map.of("firstName", "Peter"));
+
+		assertEquals(List.of(), index.search("john", 10));
+		assertEquals(List.of("1"), index.search("peter", 10));
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	void updateMergesChangedFieldsAndDropsNulls() {
+		index.put("1", Map.of("firstName", "John", "lastName", "Doe"));
+
+		Map<String, Object> changes = new HashMap<>();
+		changes.put("lastName", "Smith");
+		changes.put("firstName", null);
+		index.update("1", changes);
+
+		assertEquals(List.of("1"), index.search("smith", 10));
+		assertEquals(List.of(), index.search("doe", 10));
+		assertEquals(List.of(), index.search("john", 10));
+
+		// unknown id: nothing to merge with, ignored
+		index.update("2", Map.of("lastName", "Smith"));
+		assertEquals(List.of("1"), index.search("smith", 10));
+	}
+
+	@Test
+	void removeAndEmptyDocumentsDropTheId() {
+		index.put("1", Map.of("firstName", "John"));
+		index.put("2", Map.of("firstName", "Johanna"));
+		index.remove("1");
+		index.put("2", Map.of("firstName", " "));
+		index.remove("unknown");
+
+		assertEquals(List.of(), index.search("jo", 10));
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	void searchIsUnchangedByCompaction() {
+		int documents = 2_000;
+		for (int i = 0; i < documents; i++) {
+			index.put("u" + i, Map.of("firstName", "user" + i, "lastName", "Before"));
+		}
+		// every put / remove retires a number: once they outnumber the live documents (around i = 1334)
+		// the index is rebuilt, and the remaining writes go to the compacted index
+		for (int i = 0; i < documents; i++) {
+			if (i % 2 == 0) {
+				index.remove("u" + i);
+			} else {
+				index.put("u" + i, Map.of("firstName", "user" + i, "lastName", "After"));
+			}
+		}
+
+		assertEquals(1_000, index.size());
+		List<String> after = index.search("after", documents);
+		assertEquals(1_000, after.size());
+		assertTrue(after.stream().allMatch(id -> Integer.parseInt(id.substring(1)) % 2 == 1));
+		assertEquals(List.of(), index.search("before", 10));
+		assertEquals(List.of("u1999"), index.search("user1999", 10));
+		assertEquals(List.of(), index.search("user1998", 10));
+		assertFalse(index.search("user10", documents).contains("u10"));
+
+		index.put("new", Map.of("firstName", "Newcomer"));
+		assertEquals(List.of("new"), index.search("newc", 10));
+	}
+
+	@Test
+	void rejectsGramsShorterThanTwo() {
+		assertThrows(IllegalArgumentException.class, () -> new NgramIndex(1));
+	}
+}
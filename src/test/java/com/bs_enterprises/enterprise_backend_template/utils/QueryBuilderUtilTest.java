@@ -0,0 +1,218 @@
+package com.bs_enterprises.enterprise_backend_template.utils;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * {@link QueryBuilderUtil#buildQuery} against the query documents each parameter shape must produce,
+ * also when a cached plan is bound to new values.
+ */
+class QueryBuilderUtilTest {
+
+	@Test
+	void searchTextPerMode() {
+		Map<String, Object> params = new HashMap<>(Map.of(
+				QueryBuilderUtil.SEARCH_TEXT, "  John ",
+				QueryBuilderUtil.SEARCH_FIELDS, List.of("firstName", "email")));
+
+		assertQuery(params, and(or(
+				doc("firstName", regex("\\QJohn\\E", Pattern.CASE_INSENSITIVE)),
+				doc("email", regex("\\QJohn\\E", Pattern.CASE_INSENSITIVE)))));
+
+		params.put(QueryBuilderUtil.SEARCH_MODE, "prefix");
+		assertQuery(params, and(or(
+				doc("_search.firstName", regex("^john", 0)),
+				doc("_search.email", regex("^john", 0)))));
+
+		params.put(QueryBuilderUtil.SEARCH_MODE, "exact");
+		assertQuery(params, and(or(doc("_search.firstName", "john"), doc("_search.email", "john"))));
+
+		params.put(QueryBuilderUtil.SEARCH_MODE, "text");
+		assertQuery(params, and(doc("$text", doc("$search", "John"))));
+	}
+
+	@Test
+	void searchTextIsQuotedAndIgnoredWhenBlank() {
+		assertQuery(Map.of(QueryBuilderUtil.SEARCH_TEXT, "o'brien (x)", QueryBuilderUtil.SEARCH_FIELDS, List.of("lastName")),
+				and(or(doc("lastName", regex("\\Qo'brien (x)\\E", Pattern.CASE_INSENSITIVE)))));
+		assertQuery(Map.of(QueryBuilderUtil.SEARCH_TEXT, "Ab.c", QueryBuilderUtil.SEARCH_FIELDS, List.of("lastName"),
+						QueryBuilderUtil.SEARCH_MODE, "prefix"),
+				and(or(doc("_search.lastName", regex("^ab\\.c", 0)))));
+
+		assertQuery(Map.of(QueryBuilderUtil.SEARCH_TEXT, "  ", QueryBuilderUtil.SEARCH_FIELDS, List.of("lastName")), doc());
+		assertQuery(Map.of(QueryBuilderUtil.SEARCH_TEXT, "john", QueryBuilderUtil.SEARCH_FIELDS, List.of()), doc());
+	}
+
+	@Test
+	void filterOperators() {
+		Map<String, Object> filters = new LinkedHashMap<>();
+		filters.put("enabled", true);
+		filters.put("age", 42);
+		filters.put("status", "ACTIVE");
+		filters.put("city", "regex:^new");
+		filters.put("role", List.of("ADMIN", "MANAGER"));
+		filters.put("studioIds", Map.of("op", "all", "values", List.of("s1", "s2")));
+		filters.put("tags", Map.of("op", "in", "values", List.of("a")));
+		filters.put("legacy", Map.of("op", "in", "value", List.of("b")));
+		filters.put("blocked", Map.of("op", "nin", "values", List.of("c")));
+		filters.put("phones", Map.of("op", "size", "value", 2));
+		filters.put("deletedAt", Map.of("op", "exists", "value", false));
+		filters.put("username", Map.of("op", "regex", "pattern", "^adm", "options", "m"));
+		filters.put("nickname", Map.of("op", "regex", "pattern", "bob"));
+		filters.put("kind", Map.of("op", "eq", "value", "user"));
+
+		assertQuery(Map.of(QueryBuilderUtil.FILTERS, Map.of(QueryBuilderUtil.AND, filters)), and(and(
+				doc("enabled", true),
+				doc("age", 42),
+				doc("status", "ACTIVE"),
+				doc("city", regex("^new", Pattern.CASE_INSENSITIVE)),
+				doc("role", doc("$in", List.of("ADMIN", "MANAGER"))),
+				doc("studioIds", doc("$all", List.of("s1", "s2"))),
+				doc("tags", doc("$in", List.of("a"))),
+				doc("legacy", doc("$in", List.of("b"))),
+				doc("blocked", doc("$nin", List.of("c"))),
+				doc("phones", doc("$size", 2)),
+				doc("deletedAt", doc("$exists", false)),
+				doc("username", regex("^adm", Pattern.MULTILINE)),
+				doc("nickname", regex("bob", Pattern.CASE_INSENSITIVE)),
+				doc("kind", "user"))));
+	}
+
+	@Test
+	void filterGroups() {
+		assertQuery(Map.of(QueryBuilderUtil.FILTERS, Map.of(QueryBuilderUtil.OR, Map.of("role", List.of("ADMIN")))),
+				and(or(doc("role", doc("$in", List.of("ADMIN"))))));
+
+		Map<String, Object> or = new LinkedHashMap<>();
+		or.put("role", List.of("ADMIN"));
+		or.put("city", "regex:NY");
+		assertQuery(Map.of(QueryBuilderUtil.FILTERS, Map.of(QueryBuilderUtil.OR, or, QueryBuilderUtil.AND, Map.of("status", "ACTIVE"))),
+				and(and(
+						or(doc("role", doc("$in", List.of("ADMIN"))), doc("city", regex("NY", Pattern.CASE_INSENSITIVE))),
+						and(doc("status", "ACTIVE")))));
+
+		assertQuery(Map.of(QueryBuilderUtil.FILTERS, Map.of()), doc());
+		assertThrows(IllegalArgumentException.class, () -> QueryBuilderUtil.buildQuery(
+				Map.of(QueryBuilderUtil.FILTERS, Map.of(QueryBuilderUtil.AND, Map.of("x", Map.of("op", "near"))))));
+		assertThrows(IllegalArgumentException.class, () -> QueryBuilderUtil.buildQuery(
+				Map.of(QueryBuilderUtil.FILTERS, Map.of(QueryBuilderUtil.AND, Map.of("x", Map.of("op", "size", "value", "2"))))));
+	}
+
+	@Test
+	void dateFiltersCoverWholeUtcDays() {
+		assertQuery(Map.of(QueryBuilderUtil.DATE_FILTER, Map.of(
+						"type", "between", "field", "createdAt",
+						"startDate", "2025-10-01T10:00:00Z", "endDate", "2025-10-31T08:00:00Z")),
+				and(doc("createdAt", doc(
+						"$gte", Instant.parse("2025-10-01T00:00:00Z"),
+						"$lte", Instant.parse("2025-10-31T23:59:59.999Z")))));
+		assertQuery(Map.of(QueryBuilderUtil.DATE_FILTER, Map.of("type", "on", "onDate", "2025-10-05T12:00:00Z")),
+				and(doc("createdAt", doc(
+						"$gte", Instant.parse("2025-10-05T00:00:00Z"),
+						"$lte", Instant.parse("2025-10-05T23:59:59.999Z")))));
+		assertQuery(Map.of(QueryBuilderUtil.DATE_FILTER, Map.of("type", ">=", "startDate", "2025-10-05T12:00:00Z")),
+				and(doc("createdAt", doc("$gte", Instant.parse("2025-10-05T00:00:00Z")))));
+		assertQuery(Map.of(QueryBuilderUtil.DATE_FILTER, Map.of("type", "<=", "field", "updatedAt", "endDate", "2025-10-05T12:00:00Z")),
+				and(doc("updatedAt", doc("$lte", Instant.parse("2025-10-05T23:59:59.999Z")))));
+
+		assertThrows(IllegalArgumentException.class, () -> QueryBuilderUtil.buildQuery(
+				Map.of(QueryBuilderUtil.DATE_FILTER, Map.of("type", "between", "startDate", "2025-10-05T12:00:00Z"))));
+	}
+
+	@Test
+	void idListsAndSort() {
+		assertQuery(Map.of(QueryBuilderUtil.IDS_LIST, List.of("1", "2"), QueryBuilderUtil.NOT_IDS_LIST, List.of("3")),
+				and(doc("_id", doc("$in", List.of("1", "2"))), doc("_id", doc("$nin", List.of("3")))));
+		assertQuery(Map.of(QueryBuilderUtil.IDS_LIST, List.of(), QueryBuilderUtil.NOT_IDS_LIST, List.of("3")),
+				and(doc("_id", doc("$nin", List.of("3")))));
+		assertQuery(Map.of(), doc());
+
+		Map<String, Object> sort = new LinkedHashMap<>();
+		sort.put("lastName", 1);
+		sort.put("createdAt", -1);
+		Query query = QueryBuilderUtil.buildQuery(Map.of(QueryBuilderUtil.IDS_LIST, List.of("1"), QueryBuilderUtil.SORT, sort));
+		assertEquals(new Document("lastName", 1).append("createdAt", -1), query.getSortObject());
+		assertThrows(IllegalArgumentException.class, () -> QueryBuilderUtil.buildQuery(Map.of(QueryBuilderUtil.SORT, Map.of("x", 2))));
+	}
+
+	@Test
+	void cachedPlanIsBoundToNewValues() {
+		for (int i = 0; i < 3; i++) {
+			Map<String, Object> params = new HashMap<>();
+			params.put(QueryBuilderUtil.NOT_IDS_LIST, List.of("user-" + i));
+			params.put(QueryBuilderUtil.SEARCH_TEXT, "text-" + i);
+			params.put(QueryBuilderUtil.SEARCH_FIELDS, List.of("firstName"));
+			params.put(QueryBuilderUtil.FILTERS, Map.of(
+					QueryBuilderUtil.AND, Map.of("studioIds", Map.of("op", "all", "values", List.of("studio-" + i)))));
+			params.put(QueryBuilderUtil.DATE_FILTER, Map.of(
+					"type", ">=", "startDate", "2025-10-0" + (i + 1) + "T08:00:00Z"));
+			params.put(QueryBuilderUtil.SORT, Map.of("createdAt", -1));
+
+			Query query = QueryBuilderUtil.buildQuery(params);
+			assertEquals(comparable(and(
+							doc("_id", doc("$nin", List.of("user-" + i))),
+							or(doc("firstName", regex("\\Qtext-" + i + "\\E", Pattern.CASE_INSENSITIVE))),
+							and(doc("studioIds", doc("$all", List.of("studio-" + i)))),
+							doc("createdAt", doc("$gte", Instant.parse("2025-10-0" + (i + 1) + "T00:00:00Z"))))),
+					comparable(query.getQueryObject()));
+			assertEquals(new Document("createdAt", -1), query.getSortObject());
+		}
+	}
+
+	private static void assertQuery(Map<String, Object> params, Map<String, Object> expected) {
+		Query query = QueryBuilderUtil.buildQuery(params);
+		assertEquals(comparable(expected), comparable(query.getQueryObject()), params.toString());
+	}
+
+	private static Map<String, Object> and(Object... criteria) {
+		return doc("$and", List.of(criteria));
+	}
+
+	private static Map<String, Object> or(Object... criteria) {
+		return doc("$or", List.of(criteria));
+	}
+
+	private static Map<String, Object> doc(Object... keysAndValues) {
+		Map<String, Object> document = new LinkedHashMap<>();
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			document.put((String) keysAndValues[i], keysAndValues[i + 1]);
+		}
+		return document;
+	}
+
+	private static Pattern regex(String pattern, int flags) {
+		return Pattern.compile(pattern, flags);
+	}
+
+	/**
+	 * Pattern has no equals: compare regexes by pattern and flags.
+	 */
+	private static Object comparable(Object value) {
+		if (value instanceof Map<?, ?> map) {
+			Map<Object, Object> copy = new LinkedHashMap<>();
+			map.forEach((key, nested) -> copy.put(key, comparable(nested)));
+			return copy;
+		}
+		if (value instanceof List<?> list) {
+			List<Object> copy = new ArrayList<>(list.size());
+			list.forEach(nested -> copy.add(comparable(nested)));
+			return copy;
+		}
+		if (value instanceof Pattern pattern) {
+			return "/" + pattern.pattern() + "/" + pattern.flags();
+		}
+		return value;
+	}
+}